@@ -5,25 +5,16 @@
 package ataxx;
 
 
-import java.util.ArrayList;
 import java.util.Random;
 
-import static ataxx.PieceColor.*;
-import static java.lang.Math.min;
-import static java.lang.Math.max;
-
 /** A Player that computes its own moves.
  *  @author Tianyu Liu
  */
 class AI extends Player {
 
-    /** Maximum minimax search depth before going to static evaluation. */
+    /** Maximum search depth before going to static evaluation, when
+     *  there is no time limit. */
     private static final int MAX_DEPTH = 4;
-    /** A position magnitude indicating a win (for red if positive, blue
-     *  if negative). */
-    private static final int WINNING_VALUE = Integer.MAX_VALUE - 20;
-    /** A magnitude greater than a normal value. */
-    private static final int INFTY = Integer.MAX_VALUE;
 
     /** A new AI for GAME that will play MYCOLOR. SEED is used to initialize
      *  a random-number generator for use in move computations.  Identical
@@ -41,136 +32,308 @@ class AI extends Player {
     @Override
     String getMove() {
         if (!getBoard().canMove(myColor())) {
+            stopThinking();
             game().reportMove(Move.pass(), myColor());
             return "-";
         }
         Main.startTiming();
         Move move = findMove();
-        Main.endTiming();
+        Main.endTiming(_pool.aspirationStatistics());
         game().reportMove(move, myColor());
+        if (game().ponders(myColor())) {
+            startPondering(move);
+        }
         return move.toString();
     }
 
+    @Override
+    void forget() {
+        stopThinking();
+        if (_table != null) {
+            _table.clear();
+        }
+    }
+
+    @Override
+    void stopThinking() {
+        if (_ponderer != null) {
+            _pool.stop();
+            waitFor(_ponderer, Long.MAX_VALUE);
+            _pool.resume();
+            _ponderer = null;
+            _pondered = null;
+        }
+    }
+
     /** Return a move for me from the current position, assuming there
-     *  is a move. */
+     *  is a move.  Without a time limit, searches to depth MAX_DEPTH - 2
+     *  and then, with aspiration windows, to MAX_DEPTH.  With one,
+     *  searches to depth 1, 2, ... until time runs out, and returns
+     *  the move found by the last search that finished.  Plays from the
+     *  game's opening book, if any, where it can, and near the end of
+     *  the game, tries to solve it exactly first.  If I have been
+     *  pondering this position, finishes that search instead, counting
+     *  the time already spent on it. */
     private Move findMove() {
         Board b = new Board(getBoard());
-        _lastFoundMove = null;
-        if (myColor() == RED) {
-            minMax(b, MAX_DEPTH, true, 1, -INFTY, INFTY);
+        long limit = game().moveTime();
+        long deadline;
+        if (limit <= 0) {
+            deadline = Long.MAX_VALUE;
         } else {
-            minMax(b, MAX_DEPTH, true, -1, -INFTY, INFTY);
-        }
-        return _lastFoundMove;
-    }
-
-    /** The move found by the last call to the findMove method
-     *  above. */
-    private Move _lastFoundMove;
-
-    private ArrayList<Move> allmoves(Board board) {
-        ArrayList<Move> result = new ArrayList();
-        char[] C = {'a', 'b', 'c', 'd', 'e', 'f', 'g'};
-        char[] R = {'1', '2', '3', '4', '5', '6', '7'};
-        for (int fc0 = 0; fc0 < C.length; fc0++) {
-            for (int fr0 = 0; fr0 < R.length; fr0++) {
-                if (board.get(C[fc0], R[fr0]) == board.whoseMove()) {
-                    int a = fc0 - 2;
-                    int b = fc0 + 2;
-                    for (int fc1 = a; fc1 <= b && fc1 < 7; fc1++) {
-                        int c = fr0 - 2;
-                        int d = fr0 + 2;
-                        for (int fr1 = c; fr1 <= d && fr1 < 7; fr1++) {
-                            if (fc1 >= 0 && fr1 >= 0) {
-                                char c0 = C[fc0];
-                                char r0 = R[fr0];
-                                char c1 = C[fc1];
-                                char r1 = R[fr1];
-                                Move thisMove;
-                                thisMove = Move.move(c0, r0, c1, r1);
-                                if (board.legalMove(thisMove)) {
-                                    result.add(thisMove);
-                                }
-                            }
-                        }
-                    }
-                }
+            deadline = Utils.deadline(System.nanoTime(), limit);
+        }
+        int best = bookMove(b);
+        if (best != Searcher.NO_MOVE) {
+            stopThinking();
+            Utils.debug(1, "[%s plays from book]", myColor());
+            return b.toMove(best);
+        }
+        if (b.numEmpty() <= game().options(myColor()).endgame()) {
+            best = solve(b, limit);
+            if (best != Searcher.NO_MOVE) {
+                return b.toMove(best);
             }
         }
-        if (result.size() == 0) {
-            result.add(Move.PASS);
+        best = ponderResult(b, limit);
+        if (best == Searcher.NO_MOVE) {
+            prepareSearch();
+            best = _pool.search(b, firstDepth(), lastDepth(), deadline,
+                                _table);
+        }
+        Utils.debug(1, "[%s searched to depth %d with %d thread(s), "
+                    + "%d nodes, %s]", myColor(), _pool.depth(),
+                    _pool.threads(), _pool.nodes(), _pool.statistics());
+        if (best == Searcher.NO_MOVE) {
+            int[] moves = new int[Board.MAX_MOVES];
+            b.legalMoves(moves);
+            best = moves[0];
         }
-        return result;
+        return b.toMove(best);
     }
 
-    /** Find a move from position BOARD and return its value, recording
-     *  the move found in _foundMove iff SAVEMOVE. The move
-     *  should have maximal value or have value > BETA if SENSE==1,
-     *  and minimal value or value < ALPHA if SENSE==-1. Searches up to
-     *  DEPTH levels.  Searching at level 0 simply returns a static estimate
-     *  of the board value and does not set _foundMove. If the game is over
-     *  on BOARD, does not set _foundMove. */
-    private int minMax(Board board, int depth, boolean saveMove, int sense,
-                       int alpha, int beta) {
-        if (depth == 0 || board.getWinner() != null) {
-            return staticScore(board, WINNING_VALUE + depth);
+    /** Return the code of a move from the game's opening book for
+     *  BOARD, or NO_MOVE if there is none.  Since the book matches
+     *  positions by a hash of them, and may have been built for other
+     *  rules, a move it gives that is not legal on BOARD is ignored. */
+    private int bookMove(Board board) {
+        OpeningBook book = game().book();
+        if (book == null) {
+            return Searcher.NO_MOVE;
         }
-        Move best = null;
-        int bestScore;
-        if (sense == 1) {
-            bestScore = -INFTY;
-        } else {
-            bestScore = INFTY;
-        }
-        ArrayList<Move> allm = allmoves(board);
-        for (int i = 0; i < allm.size(); i++) {
-            Move thisMove = allm.get(i);
-            board.makeMove(thisMove);
-            int response = minMax(board, depth - 1, false, -sense, alpha, beta);
-            board.undo();
-            boolean condition;
-            if (sense == 1) {
-                condition = (response > bestScore);
-            } else {
-                condition = (response < bestScore);
-            }
-            if (condition) {
-                bestScore = response;
-                if (sense == 1) {
-                    alpha = max(alpha, bestScore);
-                } else {
-                    beta = min(beta, bestScore);
-                }
-                best = thisMove;
-                if (alpha >= beta) {
-                    if (saveMove) {
-                        _lastFoundMove = best;
-                    }
-                    return bestScore;
-                }
+        int move = book.move(board, _random);
+        if (move != Searcher.NO_MOVE && !isLegal(board, move)) {
+            Utils.debug(1, "[%s ignores illegal book move]", myColor());
+            return Searcher.NO_MOVE;
+        }
+        return move;
+    }
+
+    /** Return true iff CODE is the code of a legal move on BOARD. */
+    private static boolean isLegal(Board board, int code) {
+        int[] moves = new int[Board.MAX_MOVES];
+        int n = board.legalMoves(moves);
+        for (int i = 0; i < n; i += 1) {
+            if (moves[i] == code) {
+                return true;
             }
         }
-        if (saveMove) {
-            _lastFoundMove = best;
+        return false;
+    }
+
+    /** Try to solve the endgame on BOARD, taking half of LIMIT
+     *  milliseconds, or SOLVE_TIME if LIMIT is not positive.  Return the
+     *  code of the best move if that was found, or of a winning move if
+     *  a win was found, and otherwise NO_MOVE. */
+    private int solve(Board board, long limit) {
+        stopThinking();
+        if (_solver == null) {
+            _solver = new EndgameSolver(Defaults.SOLVER_TABLE_SIZE);
+        }
+        long millis = limit <= 0 ? Defaults.SOLVE_TIME : limit / 2;
+        boolean solved =
+            _solver.solve(board, Utils.deadline(System.nanoTime(), millis));
+        Utils.debug(1, "[%s solving with %d empty squares: margin %d..%d, "
+                    + "%d nodes]", myColor(), board.numEmpty(),
+                    _solver.lower(), _solver.upper(), _solver.nodes());
+        if (solved || _solver.lower() > 0) {
+            return _solver.bestMove();
+        }
+        return Searcher.NO_MOVE;
+    }
+
+    /** Return the depth at which to start searching: MAX_DEPTH - 2 if
+     *  there is no time limit, and otherwise 1.  At a fixed depth,
+     *  deepening from 1 gains nothing, but deepening from MAX_DEPTH - 2
+     *  centers the last iteration's aspiration window on a value of the
+     *  same parity (see SearchPool.search) and costs about as many nodes
+     *  as a single full-window search.  Starting at MAX_DEPTH - 1 costs
+     *  more, since its window is centered on a value of the other
+     *  parity. */
+    private int firstDepth() {
+        return game().moveTime() <= 0 ? Math.max(1, MAX_DEPTH - 2) : 1;
+    }
+
+    /** Return the depth at which to stop searching: MAX_DEPTH, or as
+     *  deep as possible if there is a time limit. */
+    private int lastDepth() {
+        return game().moveTime() <= 0 ? MAX_DEPTH : Searcher.MAX_SEARCH_DEPTH;
+    }
+
+    /** Configure my searchers as the game currently asks. */
+    private void prepareSearch() {
+        SearchOptions options = game().options(myColor());
+        _pool.setThreads(game().threads(myColor()));
+        _pool.setSplit(game().splitSearch(myColor()));
+        _pool.setOptions(options);
+        prepareTables(options.evaluator());
+        _pool.setEvalCache(_evalCache);
+    }
+
+    /** Having just chosen MOVE, start searching in the background the
+     *  position after MOVE and the reply to it that my table predicts,
+     *  until stopThinking() or my next move.  Does nothing if there is
+     *  no prediction, or if the game would be over.  The search uses and
+     *  fills only my own table, so it does not disturb my opponent's
+     *  searches.  Pondering works only when my threads share that table
+     *  rather than splitting the search, since the table is also how
+     *  what it learns is used if the prediction is wrong. */
+    private void startPondering(Move move) {
+        if (game().splitSearch(myColor())) {
+            return;
+        }
+        Board b = new Board(getBoard());
+        b.makeMove(move);
+        if (b.getWinner() != null) {
+            return;
+        }
+        if (_table == null) {
+            return;
+        }
+        long entry = _table.probe(
+            Searcher.key(b, game().options(myColor()).evaluator()));
+        int reply = TranspositionTable.move(entry);
+        if (entry == 0 || reply == Board.PASS_CODE || !isLegal(b, reply)) {
+            return;
         }
-        return bestScore;
+        Move predicted = b.toMove(reply);
+        b.makeMove(predicted);
+        if (b.getWinner() != null) {
+            return;
+        }
+        Utils.debug(1, "[%s pondering %s]", myColor(), predicted);
+        prepareSearch();
+        Board position = new Board(b);
+        int firstDepth = firstDepth(), lastDepth = lastDepth();
+        TranspositionTable table = _table;
+        _ponderBest = Searcher.NO_MOVE;
+        _ponderer = new Thread(() -> {
+            _ponderBest = _pool.search(position, firstDepth, lastDepth,
+                                       Long.MAX_VALUE, table);
+        });
+        _pondered = b;
+        _ponderStart = System.nanoTime();
+        _ponderer.setDaemon(true);
+        _ponderer.start();
     }
 
-    /** Return a heuristic value for BOARD.  This value is +- WINNINGVALUE in
-     *  won positions, and 0 for ties. */
-    private int staticScore(Board board, int winningValue) {
-        PieceColor winner = board.getWinner();
-        if (winner != null) {
-            return switch (winner) {
-            case RED -> winningValue;
-            case BLUE -> -winningValue;
-            default -> 0;
-            };
+    /** Stop pondering, if I am.  If I was pondering BOARD, with the
+     *  evaluator and table size the game still asks for, first let the
+     *  search finish or, if LIMIT is positive, run for a total of LIMIT
+     *  milliseconds, and return the move it found.  Otherwise, return
+     *  NO_MOVE; what the search learnt remains in my table, unless the
+     *  change of settings empties it. */
+    private int ponderResult(Board board, long limit) {
+        if (_ponderer == null) {
+            return Searcher.NO_MOVE;
+        }
+        boolean hit = board.equals(_pondered)
+            && _cachedEvaluator == game().options(myColor()).evaluator()
+            && _tableSize == game().tableSize();
+        Utils.debug(1, "[%s prediction %s]", myColor(),
+                    hit ? "correct" : "wrong");
+        if (hit) {
+            waitFor(_ponderer, limit <= 0 ? Long.MAX_VALUE
+                    : Utils.deadline(_ponderStart, limit));
         }
+        stopThinking();
+        return hit ? _ponderBest : Searcher.NO_MOVE;
+    }
 
-        return board.numPieces(RED) - board.numPieces(BLUE);
+    /** Wait for THREAD to finish or for System.nanoTime() to pass
+     *  DEADLINE, whichever comes first. */
+    private static void waitFor(Thread thread, long deadline) {
+        while (thread.isAlive()) {
+            long millis = 0;
+            if (deadline != Long.MAX_VALUE) {
+                millis = (deadline - System.nanoTime()) / 1000000;
+                if (millis <= 0) {
+                    return;
+                }
+            }
+            try {
+                thread.join(millis);
+            } catch (InterruptedException excp) {
+                continue;
+            }
+        }
     }
 
+    /** Make my table of search results and my cache of static values
+     *  the sizes the game asks for, for searches using EVALUATOR.  They
+     *  keep their contents from move to move unless their sizes or my
+     *  evaluator change: the scores in both come from the evaluator, so
+     *  neither is shared with another AI. */
+    private void prepareTables(Evaluator evaluator) {
+        int tableSize = game().tableSize(),
+            cacheSize = game().evalCacheSize();
+        boolean changed = evaluator != _cachedEvaluator;
+        if (_table == null || _tableSize != tableSize) {
+            _table = new TranspositionTable(tableSize);
+            _tableSize = tableSize;
+        } else if (changed) {
+            _table.clear();
+        }
+        if (_evalCache == null || _evalCache.megabytes() != cacheSize) {
+            _evalCache = new EvalCache(cacheSize);
+        } else if (changed) {
+            _evalCache.clear();
+        }
+        _cachedEvaluator = evaluator;
+    }
+
+    /** Table of search results, reused between moves, or null before my
+     *  first search. */
+    private TranspositionTable _table;
+
+    /** Size of _table in megabytes. */
+    private int _tableSize;
+
+    /** Cache of static values, reused between moves. */
+    private EvalCache _evalCache;
+
+    /** The evaluator whose values are in _table and _evalCache. */
+    private Evaluator _cachedEvaluator;
+
+    /** The thread searching in the background while my opponent
+     *  moves, or null if none. */
+    private Thread _ponderer;
+
+    /** The position _ponderer is searching. */
+    private Board _pondered;
+
+    /** Value of System.nanoTime() when _ponderer started. */
+    private long _ponderStart;
+
+    /** The best move _ponderer has found, set when it finishes. */
+    private volatile int _ponderBest;
+
+    /** Solver for endgames, created when first needed. */
+    private EndgameSolver _solver;
+
+    /** The searchers I use to find moves. */
+    private final SearchPool _pool = new SearchPool();
+
     /** Pseudo-random number generator for move computation. */
     private Random _random = new Random();
 }
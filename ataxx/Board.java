@@ -7,8 +7,8 @@ package ataxx;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Stack;
 import java.util.Formatter;
+import java.util.Random;
 
 import java.util.function.Consumer;
 
@@ -58,9 +58,6 @@ class Board<COLS> {
      * A new, cleared board in the initial configuration.
      */
     Board() {
-        _board = new PieceColor[EXTENDED_SIDE * EXTENDED_SIDE];
-        _undoSquares = new Stack<Integer>();
-        _undoPieces = new Stack<PieceColor>();
         _allMoves = new ArrayList<>();
         setNotifier(NOP);
         clear();
@@ -71,32 +68,16 @@ class Board<COLS> {
      * undo history is clear, and whose notifier does nothing.
      */
     Board(Board board0) {
-        _board = board0._board.clone();
+        System.arraycopy(board0._masks, 0, _masks, 0, _masks.length);
         _allMoves = new ArrayList<>();
         _numMoves = 0;
-        _numJumps = 0;
+        _key = board0._key;
+        _numJumps = board0._numJumps;
+        _vacated = board0._vacated;
         _whoseMove = board0._whoseMove;
-        _numPieces = board0._numPieces.clone();
-
-        _undoSquares = new Stack<Integer>();
-        _undoPieces = new Stack<PieceColor>();
-
-        boolean cond4 = _numJumps >= JUMP_LIMIT;
-        boolean cond1 = (!canMove(RED)) && (!canMove(BLUE));
-        boolean cond3 = numPieces(RED) + numPieces(BLUE) == totalOpen();
-        if (numPieces(RED) == 0) {
-            _winner = BLUE;
-        } else if (numPieces(BLUE) == 0) {
-            _winner = RED;
-        } else if (cond4 || cond1 || cond3) {
-            if (numPieces(RED) > numPieces(BLUE)) {
-                _winner = RED;
-            } else if (numPieces(RED) < numPieces(BLUE)) {
-                _winner = BLUE;
-            } else {
-                _winner = EMPTY;
-            }
-        }
+        _totalOpen = board0._totalOpen;
+        updateMobility();
+        updateWinner();
         setNotifier(NOP);
     }
 
@@ -115,40 +96,85 @@ class Board<COLS> {
         return sq + dc + dr * EXTENDED_SIDE;
     }
 
+    /**
+     * Return the bit number of the square with linearized index SQ in
+     * the bit masks that record the board's contents, or -1 if SQ is in
+     * the border region.
+     */
+    static int bitIndex(int sq) {
+        return BIT_INDEX[sq];
+    }
+
+    /**
+     * Return the linearized index of the square whose bit number is BIT.
+     */
+    static int squareIndex(int bit) {
+        return SQUARE_INDEX[bit];
+    }
+
+    /**
+     * Return the bit number of the square to which symmetry SYM (0 .. 7)
+     * of the board takes the square at column C and row R (each 0 ..
+     * SIDE-1).  Bit 2 of SYM (applied first) exchanges rows with
+     * columns, bit 0 reflects columns, and bit 1 reflects rows.
+     */
+    static int symmetric(int c, int r, int sym) {
+        if ((sym & 4) != 0) {
+            int t = c;
+            c = r;
+            r = t;
+        }
+        if ((sym & 1) != 0) {
+            c = SIDE - 1 - c;
+        }
+        if ((sym & 2) != 0) {
+            r = SIDE - 1 - r;
+        }
+        return c + r * SIDE;
+    }
+
+    /**
+     * Return the set of squares within one row and column of some square
+     * in MASK, including the squares of MASK themselves.
+     */
+    static long grow(long mask) {
+        long row = mask | ((mask << 1) & NOT_FILE_A)
+            | ((mask >>> 1) & NOT_FILE_G);
+        return (row | (row << SIDE) | (row >>> SIDE)) & ALL_SQUARES;
+    }
+
+    /**
+     * Return the set of squares adjacent to some square in MASK.  A
+     * square of MASK is included only if another square of MASK is
+     * adjacent to it.
+     */
+    static long neighbors(long mask) {
+        long sides = ((mask << 1) & NOT_FILE_A) | ((mask >>> 1) & NOT_FILE_G);
+        long row = mask | sides;
+        return (sides | (row << SIDE) | (row >>> SIDE)) & ALL_SQUARES;
+    }
+
     /**
      * Clear me to my starting state, with pieces in their initial
      * positions and no blocks.
      */
     void clear() {
         _whoseMove = RED;
-        for (int i = 0; i < _board.length; i++) {
-            _board[i] = EMPTY;
-        }
-        _numPieces[RED.ordinal()] = 0;
-        _numPieces[BLUE.ordinal()] = 0;
-        set('a', '7', RED);
-        set('g', '1', RED);
-        set('a', '1', BLUE);
-        set('g', '7', BLUE);
-        _numPieces[RED.ordinal()] += 2;
-        _numPieces[BLUE.ordinal()] += 2;
-        _numMoves = 0;
         _numJumps = 0;
-
-        boolean cond4 = _numJumps >= JUMP_LIMIT;
-        boolean cond1 = (!canMove(RED)) && (!canMove(BLUE));
-        boolean cond3 = numPieces(RED) + numPieces(BLUE) == totalOpen();
-        if (cond4 || cond1 || cond3) {
-            if (numPieces(RED) > numPieces(BLUE)) {
-                _winner = RED;
-            } else if (numPieces(RED) < numPieces(BLUE)) {
-                _winner = BLUE;
-            } else {
-                _winner = EMPTY;
-            }
-        } else {
-            _winner = null;
-        }
+        _vacated = 0;
+        _key = 0;
+        Arrays.fill(_masks, 0L);
+        _masks[EMPTY.ordinal()] = ALL_SQUARES;
+        unrecordedSet('a', '7', RED);
+        unrecordedSet('g', '1', RED);
+        unrecordedSet('a', '1', BLUE);
+        unrecordedSet('g', '7', BLUE);
+        _totalOpen = SIDE * SIDE;
+        updateMobility();
+        updateWinner();
+        _allMoves.clear();
+        _undoTop = 0;
+        _numMoves = 0;
         announce();
     }
 
@@ -162,6 +188,33 @@ class Board<COLS> {
         return _winner;
     }
 
+    /**
+     * Set getWinner() from the current position.  The game is over
+     * when one side has no pieces, after JUMP_LIMIT consecutive jumps,
+     * or when neither side can move (in particular, when there are no
+     * empty squares left).  The side with more pieces then wins.
+     */
+    private void updateWinner() {
+        int red = numPieces(RED), blue = numPieces(BLUE);
+        if (red == 0) {
+            _winner = BLUE;
+        } else if (blue == 0) {
+            _winner = RED;
+        } else if (_numJumps >= JUMP_LIMIT
+                   || (_mobility[RED.ordinal()] == 0
+                       && _mobility[BLUE.ordinal()] == 0)) {
+            if (red > blue) {
+                _winner = RED;
+            } else if (red < blue) {
+                _winner = BLUE;
+            } else {
+                _winner = EMPTY;
+            }
+        } else {
+            _winner = null;
+        }
+    }
+
     /**
      * Return number of red pieces on the board.
      */
@@ -180,14 +233,15 @@ class Board<COLS> {
      * Return number of COLOR pieces on the board.
      */
     int numPieces(PieceColor color) {
-        return _numPieces[color.ordinal()];
+        return Long.bitCount(_masks[color.ordinal()]);
     }
 
     /**
-     * Increment numPieces(COLOR) by K.
+     * Return the set of squares whose contents are COLOR, as a bit mask
+     * indexed by bitIndex.
      */
-    private void incrPieces(PieceColor color, int k) {
-        _numPieces[color.ordinal()] += k;
+    long mask(PieceColor color) {
+        return _masks[color.ordinal()];
     }
 
     /**
@@ -196,47 +250,65 @@ class Board<COLS> {
      * BLOCKED.  Returns the same value as get(index(C, R)).
      */
     PieceColor get(char c, char r) {
-        return _board[index(c, r)];
+        return get(index(c, r));
     }
 
     /**
      * Return the current contents of square with linearized index SQ.
      */
     PieceColor get(int sq) {
-        return _board[sq];
-    }
-
-    /**
-     * Set get(C, R) to V, where 'a' <= C <= 'g', and
-     * '1' <= R <= '7'. This operation is undoable.
-     */
-    private void set(char c, char r, PieceColor v) {
-        set(index(c, r), v);
+        int b = BIT_INDEX[sq];
+        if (b < 0) {
+            return BLOCKED;
+        }
+        long bit = 1L << b;
+        if ((_masks[EMPTY.ordinal()] & bit) != 0) {
+            return EMPTY;
+        } else if ((_masks[RED.ordinal()] & bit) != 0) {
+            return RED;
+        } else if ((_masks[BLUE.ordinal()] & bit) != 0) {
+            return BLUE;
+        } else {
+            return BLOCKED;
+        }
     }
 
     /**
-     * Set square with linearized index SQ to V.  This operation is
-     * undoable.
+     * Change the contents of the squares in SQUARES, all of which
+     * currently contain OLD, to V (not undoable).  Moves and their undoing
+     * are performed with this; the undo journal records enough to
+     * reverse them.
      */
-    private void set(int sq, PieceColor v) {
-        addUndo(sq);
-        _board[sq] = v;
+    private void change(long squares, PieceColor old, PieceColor v) {
+        _masks[old.ordinal()] &= ~squares;
+        _masks[v.ordinal()] |= squares;
+        long[] oldKeys = SQUARE_KEYS[old.ordinal()],
+            newKeys = SQUARE_KEYS[v.ordinal()];
+        for (; squares != 0; squares &= squares - 1) {
+            int b = Long.numberOfTrailingZeros(squares);
+            _key ^= oldKeys[b] ^ newKeys[b];
+        }
     }
 
     /**
      * Set square at C R to V (not undoable). This is used for changing
-     * contents of the board without updating the undo stacks.
+     * contents of the board without updating the undo journal.
      */
     private void unrecordedSet(char c, char r, PieceColor v) {
-        _board[index(c, r)] = v;
+        unrecordedSet(index(c, r), v);
     }
 
     /**
      * Set square at linearized index SQ to V (not undoable). This is used
-     * for changing contents of the board without updating the undo stacks.
+     * for changing contents of the board without updating the undo journal.
      */
     private void unrecordedSet(int sq, PieceColor v) {
-        _board[sq] = v;
+        int b = BIT_INDEX[sq];
+        long bit = 1L << b;
+        PieceColor old = get(sq);
+        _masks[old.ordinal()] &= ~bit;
+        _masks[v.ordinal()] |= bit;
+        _key ^= SQUARE_KEYS[old.ordinal()][b] ^ SQUARE_KEYS[v.ordinal()][b];
     }
 
     /**
@@ -274,25 +346,34 @@ class Board<COLS> {
      * that player's move and whether the game is over.
      */
     boolean canMove(PieceColor who) {
-        char[] C = {'a', 'b', 'c', 'd', 'e', 'f', 'g'};
-        char[] R = {'1', '2', '3', '4', '5', '6', '7'};
-        for (int c = 0; c < C.length; c++) {
-            for (int r = 0; r < R.length; r++) {
-                if (get(C[c], R[r]) == who) {
-                    for (int c1 = c - 2; (c1 < C.length && c1 <= c + 2); c1++) {
-                        int n = r + 2;
-                        for (int r1 = r - 2; (r1 < R.length && r1 <= n); r1++) {
-                            if (c1 >= 0 && r1 >= 0) {
-                                if (get(C[c1], R[r1]) == EMPTY) {
-                                    return true;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        return _mobility[who.ordinal()] > 0;
+    }
+
+    /**
+     * Return the set of empty squares that were emptied by a jump and
+     * have stayed empty since.
+     */
+    long vacated() {
+        return _vacated;
+    }
+
+    /**
+     * Return the number of empty squares to which player WHO could move
+     * a piece, ignoring whether it is that player's move.
+     */
+    int mobility(PieceColor who) {
+        return _mobility[who.ordinal()];
+    }
+
+    /**
+     * Recompute mobility(RED) and mobility(BLUE) after the contents of
+     * the board change.
+     */
+    private void updateMobility() {
+        long empty = _masks[EMPTY.ordinal()];
+        for (int p = RED.ordinal(); p <= BLUE.ordinal(); p += 1) {
+            _mobility[p] = Long.bitCount(grow(grow(_masks[p])) & empty);
         }
-        return false;
     }
 
     /**
@@ -320,6 +401,43 @@ class Board<COLS> {
         return _numJumps;
     }
 
+    /**
+     * Return a 64-bit Zobrist key identifying the current position: the
+     * contents of the squares, the side to move, and numJumps().  Equal
+     * positions have equal keys; unequal positions have equal keys only
+     * with negligible probability.  Maintained incrementally, so this
+     * takes constant time.
+     */
+    long key() {
+        return _key;
+    }
+
+    /**
+     * Set whoseMove() to WHO, updating the key.
+     */
+    private void setWhoseMove(PieceColor who) {
+        if (who != _whoseMove) {
+            _key ^= SIDE_KEY;
+        }
+        _whoseMove = who;
+    }
+
+    /**
+     * Set numJumps() to N, updating the key.
+     */
+    private void setNumJumps(int n) {
+        _key ^= jumpKey(_numJumps) ^ jumpKey(n);
+        _numJumps = n;
+    }
+
+    /**
+     * Return the Zobrist key for a jump count of N.  Counts outside the
+     * range 0 .. JUMP_LIMIT share the key of the nearest end of the range.
+     */
+    private static long jumpKey(int n) {
+        return JUMP_KEYS[Math.max(0, Math.min(n, JUMP_LIMIT))];
+    }
+
     /**
      * Assuming MOVE has the format "-" or "C0R0-C1R1", make the denoted
      * move ("-" means "pass").
@@ -357,46 +475,7 @@ class Board<COLS> {
             return;
         }
         _allMoves.add(move);
-        startUndo();
-        PieceColor opponent = _whoseMove.opposite();
-        if (move.isExtend()) {
-            set(move.col1(), move.row1(), _whoseMove);
-            incrPieces(_whoseMove, 1);
-            _numJumps = 0;
-        } else {
-            set(move.col0(), move.row0(), EMPTY);
-            set(move.col1(), move.row1(), _whoseMove);
-            _numJumps += 1;
-        }
-        for (int cd = -1; cd <= 1; cd++) {
-            for (int rd = -1; rd <= 1; rd++) {
-                int N = neighbor(index(move.col1(), move.row1()), cd, rd);
-                PieceColor p = _board[N];
-                if (p == _whoseMove.opposite()) {
-                    set(N, _whoseMove);
-                    incrPieces(_whoseMove, 1);
-                    incrPieces(_whoseMove.opposite(), -1);
-                }
-            }
-        }
-        boolean cond4 = _numJumps >= JUMP_LIMIT;
-        boolean cond1 = (!canMove(RED)) && (!canMove(BLUE));
-        boolean cond3 = numPieces(RED) + numPieces(BLUE) == totalOpen();
-        if (numPieces(RED) == 0) {
-            _winner = BLUE;
-        } else if (numPieces(BLUE) == 0) {
-            _winner = RED;
-        } else if (cond4 || cond1 || cond3) {
-            if (numPieces(RED) > numPieces(BLUE)) {
-                _winner = RED;
-            } else if (numPieces(RED) < numPieces(BLUE)) {
-                _winner = BLUE;
-            } else {
-                _winner = EMPTY;
-            }
-        }
-        _numMoves += 1;
-        _whoseMove = opponent;
+        makeSearchMove(moveCode(move));
         announce();
     }
 
@@ -407,8 +486,7 @@ class Board<COLS> {
     void pass() {
         assert !canMove(_whoseMove);
         _allMoves.add(Move.PASS);
-        startUndo();
-        _whoseMove = _whoseMove.opposite();
+        makeSearchMove(PASS_CODE);
         announce();
     }
 
@@ -416,54 +494,228 @@ class Board<COLS> {
      * Undo the last move.
      */
     void undo() {
-        if (_allMoves.get(_allMoves.size() - 1).isJump()) {
-            _numJumps -= 1;
+        if (_undoTop == 0) {
+            throw error("no move to undo");
         }
-        _numMoves -= 1;
-
-        _whoseMove = _whoseMove.opposite();
+        undoSearchMove();
         _allMoves.remove(_allMoves.size() - 1);
-        _winner = null;
+        announce();
+    }
+
+    /* Moves for searching.  The AI makes and unmakes moves that it has
+     * just generated as legal millions of times per move, so the methods
+     * below denote moves by int move codes rather than Moves, and skip
+     * the legality check, the allMoves() history and the notifier.  They
+     * do maintain everything else: piece counts, mobility, winner, key,
+     * numJumps() and numMoves(). */
+
+    /**
+     * Move code for a pass.
+     */
+    static final int PASS_CODE = -1;
 
-        if (_undoSquares.size() != _undoPieces.size()) {
-            throw error("Dismatched undostacks");
+    /**
+     * Return the move code for a move from the square with bit number
+     * FROM to the one with bit number TO.  An extend is denoted by
+     * FROM == TO, since all extends to a given square have the same
+     * effect.
+     */
+    static int moveCode(int from, int to) {
+        return (from << CODE_SHIFT) | to;
+    }
+
+    /**
+     * Return the move code for MOVE.
+     */
+    static int moveCode(Move move) {
+        if (move.isPass()) {
+            return PASS_CODE;
         }
-        while (_undoSquares.peek() != null) {
-            int targetIndex = _undoSquares.pop();
-            PieceColor targetColor = _undoPieces.pop();
-            if (_board[targetIndex] != EMPTY) {
-                incrPieces(_board[targetIndex], -1);
+        int to = BIT_INDEX[move.toIndex()];
+        if (move.isExtend()) {
+            return moveCode(to, to);
+        }
+        return moveCode(BIT_INDEX[move.fromIndex()], to);
+    }
+
+    /**
+     * Return the bit number of the from square of the non-pass move
+     * CODE.  Equal to codeTo(CODE) for extends.
+     */
+    static int codeFrom(int code) {
+        return code >> CODE_SHIFT;
+    }
+
+    /**
+     * Return the bit number of the to square of the non-pass move CODE.
+     */
+    static int codeTo(int code) {
+        return code & CODE_MASK;
+    }
+
+    /**
+     * Return a Move that has the same effect as move CODE in the current
+     * position, assuming CODE is legal.  For an extend, the piece moved
+     * is the lowest-numbered one of the player to move adjacent to the
+     * destination.
+     */
+    Move toMove(int code) {
+        if (code == PASS_CODE) {
+            return Move.PASS;
+        }
+        int from = codeFrom(code), to = codeTo(code);
+        if (from == to) {
+            from = Long.numberOfTrailingZeros(ADJACENT[to]
+                                              & _masks[_whoseMove.ordinal()]);
+        }
+        int sq0 = SQUARE_INDEX[from], sq1 = SQUARE_INDEX[to];
+        return Move.move(col(sq0), row(sq0), col(sq1), row(sq1));
+    }
+
+    /**
+     * Return the column designation of the square with linearized
+     * index SQ.
+     */
+    static char col(int sq) {
+        return (char) ('a' - 2 + sq % EXTENDED_SIDE);
+    }
+
+    /**
+     * Return the row designation of the square with linearized index SQ.
+     */
+    static char row(int sq) {
+        return (char) ('1' - 2 + sq / EXTENDED_SIDE);
+    }
+
+    /**
+     * Maximum number of moves returned by legalMoves: each empty square
+     * is the destination of at most one extend and 16 jumps.
+     */
+    static final int MAX_MOVES = 17 * SIDE * SIDE;
+
+    /**
+     * Store the codes of all legal moves for the player to move in
+     * MOVES[0 .. n-1], where n is the returned count, and MOVES has at
+     * least MAX_MOVES elements.  Each square that can be reached by an
+     * extend appears once, as an extend, followed by all jumps.  If there
+     * are no such moves, the only move is a pass.  Ignores whether the
+     * game is over.
+     */
+    int legalMoves(int[] moves) {
+        long empty = _masks[EMPTY.ordinal()],
+            mine = _masks[_whoseMove.ordinal()];
+        int n = 0;
+        for (long ext = grow(mine) & empty; ext != 0; ext &= ext - 1) {
+            int to = Long.numberOfTrailingZeros(ext);
+            moves[n++] = moveCode(to, to);
+        }
+        for (; mine != 0; mine &= mine - 1) {
+            int from = Long.numberOfTrailingZeros(mine);
+            for (long jmp = JUMPS[from] & empty; jmp != 0; jmp &= jmp - 1) {
+                moves[n++] = moveCode(from, Long.numberOfTrailingZeros(jmp));
             }
-            if (targetColor != EMPTY) {
-                incrPieces(targetColor, 1);
+        }
+        if (n == 0) {
+            moves[n++] = PASS_CODE;
+        }
+        return n;
+    }
+
+    /**
+     * Return the number of pieces the player to move would gain by the
+     * legal move CODE: the opposing pieces it would flip, plus one for
+     * an extend.
+     */
+    int gain(int code) {
+        if (code == PASS_CODE) {
+            return 0;
+        }
+        int to = codeTo(code);
+        int flips = Long.bitCount(ADJACENT[to]
+                                  & _masks[_whoseMove.opposite().ordinal()]);
+        return codeFrom(code) == to ? flips + 1 : flips;
+    }
+
+    /**
+     * Make the move CODE for the player to move, assuming it is legal.
+     * Does not record it in allMoves() or notify.  Undo it with
+     * undoSearchMove.
+     */
+    void makeSearchMove(int code) {
+        PieceColor opponent = _whoseMove.opposite();
+        if (code == PASS_CODE) {
+            addUndo(PASS_CODE, 0);
+        } else {
+            int from = codeFrom(code), to = codeTo(code);
+            long flips = ADJACENT[to] & _masks[opponent.ordinal()];
+            addUndo(code, flips);
+            if (from == to) {
+                change(1L << to, EMPTY, _whoseMove);
+                setNumJumps(0);
+            } else {
+                change(1L << from, _whoseMove, EMPTY);
+                change(1L << to, EMPTY, _whoseMove);
+                setNumJumps(_numJumps + 1);
+                _vacated |= 1L << from;
             }
-            unrecordedSet(targetIndex, targetColor);
+            _vacated &= ~(1L << to);
+            change(flips, opponent, _whoseMove);
+            updateMobility();
+            updateWinner();
         }
-        _undoSquares.pop();
-        _undoPieces.pop();
-        announce();
+        _numMoves += 1;
+        setWhoseMove(opponent);
     }
 
     /**
-     * Indicate beginning of a move in the undo stack. See the
-     * _undoSquares and _undoPieces instance variable comments for
-     * details on how the beginning of moves are marked.
+     * Undo the last move made by makeSearchMove, without changing
+     * allMoves() or notifying.
      */
-    private void startUndo() {
-        if (_undoSquares == null) {
-            _undoSquares = new Stack<>();
-            _undoPieces = new Stack<>();
+    void undoSearchMove() {
+        _undoTop -= 1;
+        int code = _undoMoves[_undoTop];
+        PieceColor mover = _whoseMove.opposite();
+        if (code != PASS_CODE) {
+            int from = codeFrom(code), to = codeTo(code);
+            change(_undoFlips[_undoTop], mover, _whoseMove);
+            change(1L << to, mover, EMPTY);
+            if (from != to) {
+                change(1L << from, EMPTY, mover);
+            }
         }
-        _undoSquares.add(null);
-        _undoPieces.add(null);
+        setNumJumps(_undoJumps[_undoTop]);
+        _vacated = _undoVacated[_undoTop];
+        _mobility[RED.ordinal()] = _undoMobility[_undoTop] >> MOBILITY_SHIFT;
+        _mobility[BLUE.ordinal()] = _undoMobility[_undoTop] & MOBILITY_MASK;
+        _winner = _undoWinners[_undoTop];
+        _numMoves -= 1;
+        setWhoseMove(mover);
     }
 
     /**
-     * Add an undo action for changing SQ on current board.
+     * Record in the undo journal the move CODE, which captures the
+     * squares in FLIPS, along with the current jump count, vacated
+     * squares, mobilities and winner.
      */
-    private void addUndo(int sq) {
-        _undoSquares.add(sq);
-        _undoPieces.add(_board[sq]);
+    private void addUndo(int code, long flips) {
+        if (_undoTop == _undoMoves.length) {
+            int size = 2 * _undoTop;
+            _undoMoves = Arrays.copyOf(_undoMoves, size);
+            _undoFlips = Arrays.copyOf(_undoFlips, size);
+            _undoJumps = Arrays.copyOf(_undoJumps, size);
+            _undoVacated = Arrays.copyOf(_undoVacated, size);
+            _undoMobility = Arrays.copyOf(_undoMobility, size);
+            _undoWinners = Arrays.copyOf(_undoWinners, size);
+        }
+        _undoMoves[_undoTop] = code;
+        _undoFlips[_undoTop] = flips;
+        _undoJumps[_undoTop] = _numJumps;
+        _undoVacated[_undoTop] = _vacated;
+        _undoMobility[_undoTop] =
+            (_mobility[RED.ordinal()] << MOBILITY_SHIFT)
+            | _mobility[BLUE.ordinal()];
+        _undoWinners[_undoTop] = _winner;
+        _undoTop += 1;
     }
 
     /**
@@ -497,10 +749,10 @@ class Board<COLS> {
         if (!legalBlock(c, r)) {
             throw error("illegal block placement");
         }
-        if (_board[index(c, r)] == RED || _board[index(c, r)] == BLUE) {
+        if (get(c, r) == RED || get(c, r) == BLUE) {
             throw error("Setblock on a piece");
         }
-        _board[index(c, r)] = BLOCKED;
+        unrecordedSet(c, r, BLOCKED);
         int columnsToMiddle = 0;
         int rowsToMiddle = 0;
         for (int i = 0; i < SIDE; i++) {
@@ -523,13 +775,13 @@ class Board<COLS> {
         char r3 = (char) ('4' - rowsToMiddle);
         char c4 = (char) ('d' - columnsToMiddle);
         char r4 = (char) ('4' + rowsToMiddle);
-        _board[index(c1, r1)] = BLOCKED;
-        _board[index(c2, r2)] = BLOCKED;
-        _board[index(c3, r3)] = BLOCKED;
-        _board[index(c4, r4)] = BLOCKED;
-        if (!canMove(RED) && !canMove(BLUE)) {
-            _winner = EMPTY;
-        }
+        unrecordedSet(c1, r1, BLOCKED);
+        unrecordedSet(c2, r2, BLOCKED);
+        unrecordedSet(c3, r3, BLOCKED);
+        unrecordedSet(c4, r4, BLOCKED);
+        _totalOpen = SIDE * SIDE - Long.bitCount(_masks[BLOCKED.ordinal()]);
+        updateMobility();
+        updateWinner();
 
         announce();
     }
@@ -545,13 +797,14 @@ class Board<COLS> {
      * Return total number of unblocked squares.
      */
     int totalOpen() {
-        int numOpen = _board.length;
-        for (int i = 0; i < _board.length; i++) {
-            if (_board[i] == BLOCKED) {
-                numOpen -= 1;
-            }
-        }
-        return numOpen;
+        return _totalOpen;
+    }
+
+    /**
+     * Return the number of empty squares.
+     */
+    int numEmpty() {
+        return _totalOpen - numPieces(RED) - numPieces(BLUE);
     }
 
     /**
@@ -573,12 +826,14 @@ class Board<COLS> {
             return false;
         }
         Board other = (Board) obj;
-        return Arrays.equals(_board, other._board);
+        return _key == other._key && Arrays.equals(_masks, other._masks)
+            && _whoseMove == other._whoseMove
+            && jumpKey(_numJumps) == jumpKey(other._numJumps);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(_board);
+        return Long.hashCode(_key);
     }
 
     /**
@@ -633,6 +888,117 @@ class Board<COLS> {
         _notifier.accept(this);
     }
 
+    /**
+     * Mask of all 49 playable squares.
+     */
+    private static final long ALL_SQUARES = (1L << (SIDE * SIDE)) - 1;
+
+    /**
+     * Masks of the playable squares not in column a and not in column g.
+     */
+    private static final long NOT_FILE_A, NOT_FILE_G;
+
+    /**
+     * Bit numbers of the squares, indexed by linearized index (-1 for
+     * squares in the border).
+     */
+    private static final int[] BIT_INDEX =
+        new int[EXTENDED_SIDE * EXTENDED_SIDE];
+
+    /**
+     * Linearized indices of the squares, indexed by bit number.
+     */
+    private static final int[] SQUARE_INDEX = new int[SIDE * SIDE];
+
+    /**
+     * ADJACENT[b] is the set of squares one row and/or column away from
+     * the square with bit number b: the destinations of its extends and
+     * the squares a piece arriving there captures.
+     */
+    static final long[] ADJACENT = new long[SIDE * SIDE];
+
+    /**
+     * JUMPS[b] is the set of squares exactly two rows or columns away
+     * from the square with bit number b: the destinations of its jumps.
+     */
+    static final long[] JUMPS = new long[SIDE * SIDE];
+
+    /**
+     * Zobrist keys for the squares, indexed by PieceColor ordinal and bit
+     * number.  The keys for EMPTY are 0, so that only occupied and
+     * blocked squares contribute to a position's key.
+     */
+    private static final long[][] SQUARE_KEYS =
+        new long[PieceColor.values().length][SIDE * SIDE];
+
+    /**
+     * Zobrist key included in a position's key when BLUE is to move.
+     */
+    private static final long SIDE_KEY;
+
+    /**
+     * Zobrist keys for the values of numJumps(), which affects when the
+     * game ends.  The entry for 0 is 0.
+     */
+    private static final long[] JUMP_KEYS = new long[JUMP_LIMIT + 1];
+
+    /**
+     * Seed for the Zobrist keys.  Fixed so that keys are the same from
+     * one run to the next.
+     */
+    private static final long ZOBRIST_SEED = 0x61B_A7A_ACCL;
+
+    static {
+        Random keys = new Random(ZOBRIST_SEED);
+        for (int p = 0; p < SQUARE_KEYS.length; p += 1) {
+            if (p != EMPTY.ordinal()) {
+                for (int b = 0; b < SIDE * SIDE; b += 1) {
+                    SQUARE_KEYS[p][b] = keys.nextLong();
+                }
+            }
+        }
+        SIDE_KEY = keys.nextLong();
+        for (int n = 1; n <= JUMP_LIMIT; n += 1) {
+            JUMP_KEYS[n] = keys.nextLong();
+        }
+    }
+
+    static {
+        long fileA, fileG;
+        fileA = fileG = 0;
+        Arrays.fill(BIT_INDEX, -1);
+        for (int r = 0; r < SIDE; r += 1) {
+            for (int c = 0; c < SIDE; c += 1) {
+                int b = c + r * SIDE;
+                int sq = index((char) ('a' + c), (char) ('1' + r));
+                BIT_INDEX[sq] = b;
+                SQUARE_INDEX[b] = sq;
+                if (c == 0) {
+                    fileA |= 1L << b;
+                } else if (c == SIDE - 1) {
+                    fileG |= 1L << b;
+                }
+            }
+        }
+        NOT_FILE_A = ALL_SQUARES & ~fileA;
+        NOT_FILE_G = ALL_SQUARES & ~fileG;
+        for (int b = 0; b < SIDE * SIDE; b += 1) {
+            for (int dc = -2; dc <= 2; dc += 1) {
+                for (int dr = -2; dr <= 2; dr += 1) {
+                    int b1 = BIT_INDEX[neighbor(SQUARE_INDEX[b], dc, dr)];
+                    if (b1 < 0 || (dc == 0 && dr == 0)) {
+                        continue;
+                    }
+                    if (Math.abs(dc) <= 1 && Math.abs(dr) <= 1) {
+                        ADJACENT[b] |= 1L << b1;
+                    } else {
+                        JUMPS[b] |= 1L << b1;
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * A notifier that does nothing.
      */
@@ -645,22 +1011,19 @@ class Board<COLS> {
     private Consumer<Board> _notifier;
 
     /**
-     * For reasons of efficiency in copying the board,
-     * we use a 1D array to represent it, using the usual access
-     * algorithm: row r, column c => index(r, c).
-     * <p>
-     * Next, instead of using a 7x7 board, we use an 11x11 board in
-     * which the outer two rows and columns are blocks, and
-     * row 2, column 2 actually represents row 0, column 0
-     * of the real board.  As a result of this trick, there is no
-     * need to special-case being near the edge: we don't move
-     * off the edge because it looks blocked.
+     * The contents of the board, as one 64-bit mask per PieceColor,
+     * indexed by ordinal.  Only the 49 playable squares are represented:
+     * the square in column c and row r ('a' <= c <= 'g', '1' <= r <= '7')
+     * is bit (c - 'a') + 7 (r - '1'), which is bitIndex(index(c, r)).
+     * Each playable square is in exactly one of the four masks.  Squares
+     * in the border region have no bit and always read as BLOCKED, so
+     * the linearized indices used elsewhere work as before.
      * <p>
-     * Using characters as indices, it follows that if 'a' <= c <= 'g'
-     * and '1' <= r <= '7', then row r, column c of the board corresponds
-     * to _board[(c -'a' + 2) + 11 (r - '1' + 2) ].
+     * Keeping the board as masks lets captures, mobility tests and piece
+     * counts be done with a few logical operations and a bit count
+     * instead of a walk over the squares.
      */
-    private final PieceColor[] _board;
+    private final long[] _masks = new long[PieceColor.values().length];
 
     /**
      * Player that is next to move.
@@ -674,15 +1037,28 @@ class Board<COLS> {
     private int _numJumps;
 
     /**
-     * Total number of unblocked squares.
+     * The squares emptied by jumps that are still empty.  See
+     * vacated().
+     */
+    private long _vacated;
+
+    /**
+     * Zobrist key of the current position.  See key().
+     */
+    private long _key;
+
+    /**
+     * Total number of unblocked squares on the playable board.  Changes
+     * only in clear and setBlock.
      */
     private int _totalOpen;
 
     /**
-     * Number of blue and red pieces, indexed by the ordinal positions of
-     * enumerals BLUE and RED.
+     * Values of mobility(RED) and mobility(BLUE), indexed by the ordinal
+     * positions of enumerals RED and BLUE.  Updated whenever squares
+     * change, so that canMove takes constant time.
      */
-    private int[] _numPieces = new int[BLUE.ordinal() + 1];
+    private final int[] _mobility = new int[BLUE.ordinal() + 1];
 
     /**
      * Set to winner when game ends (EMPTY if tie).  Otherwise is null.
@@ -695,20 +1071,66 @@ class Board<COLS> {
      */
     private ArrayList<Move> _allMoves;
 
-    /* The undo stack. We keep a stack of squares that have changed and
-     * their previous contents.  Any given move may involve several such
-     * changes, so we mark the start of the changes for each move (including
-     * passes) with a null. */
+    /* The undo journal.  Rather than recording each changed square, we
+     * keep one record per move (including passes) in parallel arrays of
+     * primitives: the move's from and to squares, the set of squares it
+     * captured, and the jump count, mobilities and winner before it.
+     * That is enough to reverse the move exactly.  The arrays are
+     * allocated once and grown only when a game outlasts them, so making
+     * and undoing moves during a search allocates nothing. */
+
+    /**
+     * Initial number of records in the undo journal.
+     */
+    private static final int UNDO_CAPACITY = 128;
+
+    /**
+     * Position of the from square and mask of the to square in a move
+     * code.
+     */
+    private static final int CODE_SHIFT = 6, CODE_MASK = 0x3f;
+
+    /** Move codes other than PASS_CODE are less than this. */
+    static final int CODE_LIMIT = 1 << (2 * CODE_SHIFT);
+
+    /**
+     * Number of records in the undo journal.
+     */
+    private int _undoTop;
+    /**
+     * The move codes of the moves in the undo journal.
+     */
+    private int[] _undoMoves = new int[UNDO_CAPACITY];
+    /**
+     * The squares captured by the corresponding moves in _undoMoves.
+     */
+    private long[] _undoFlips = new long[UNDO_CAPACITY];
+    /**
+     * The values of numJumps() before the corresponding moves in
+     * _undoMoves.
+     */
+    private int[] _undoJumps = new int[UNDO_CAPACITY];
+    /**
+     * The values of mobility(RED) and mobility(BLUE) before the
+     * corresponding moves in _undoMoves, packed as
+     * (red << MOBILITY_SHIFT) | blue.
+     */
+    private int[] _undoMobility = new int[UNDO_CAPACITY];
+    /**
+     * The values of vacated() before the corresponding moves in
+     * _undoMoves.
+     */
+    private long[] _undoVacated = new long[UNDO_CAPACITY];
 
     /**
-     * Stack of linearized indices of squares that have been modified and
-     * not undone. Nulls mark the beginnings of full moves.
+     * Position and mask of blue's mobility in an _undoMobility entry.
      */
-    private Stack<Integer> _undoSquares;
+    private static final int MOBILITY_SHIFT = 8, MOBILITY_MASK = 0xff;
     /**
-     * Stack of pieces formally at corresponding squares in _UNDOSQUARES.
+     * The values of getWinner() before the corresponding moves in
+     * _undoMoves.
      */
-    private Stack<PieceColor> _undoPieces;
+    private PieceColor[] _undoWinners = new PieceColor[UNDO_CAPACITY];
 
     /**
      * Total number of movement in current gameN.
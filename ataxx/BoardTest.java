@@ -336,6 +336,250 @@ public class BoardTest {
         assertEquals("wrong bluePieces", 12, b.bluePieces());
     }
 
+    @Test
+    public void testMasks() {
+        Board b = new Board();
+        makeMoves(b, UNDO2MOVES);
+        assertEquals("border not blocked", BLOCKED,
+                b.get((char) ('a' - 1), '4'));
+        for (PieceColor p : PieceColor.values()) {
+            int count = 0;
+            for (char c = 'a'; c <= 'g'; c += 1) {
+                for (char r = '1'; r <= '7'; r += 1) {
+                    int sq = Board.index(c, r);
+                    boolean inMask =
+                        (b.mask(p) & (1L << Board.bitIndex(sq))) != 0;
+                    assertEquals("mask disagrees with get at " + c + r,
+                            b.get(sq) == p, inMask);
+                    count += inMask ? 1 : 0;
+                }
+            }
+            assertEquals("wrong count of " + p, count,
+                    Long.bitCount(b.mask(p)));
+        }
+        assertEquals("wrong redPieces", 4, b.numPieces(RED));
+        assertEquals("wrong bluePieces", 12, b.numPieces(BLUE));
+        assertTrue("red should be able to move", b.canMove(RED));
+    }
+
+    @Test
+    public void testKey() {
+        Board b0 = new Board();
+        long start = b0.key();
+        makeMoves(b0, new String[] { "a7-a6", "a1-a2", "g1-g2" });
+        Board b1 = new Board();
+        makeMoves(b1, new String[] { "g1-g2", "a1-a2", "a7-a6" });
+        assertEquals("transposed positions have different keys",
+                b0.key(), b1.key());
+        assertEquals("transposed positions not equal", b0, b1);
+        assertEquals("equal boards have different hashCodes",
+                b0.hashCode(), b1.hashCode());
+        b0.makeMove('a', '2', 'a', '4');
+        assertNotEquals("jump did not change key", b1.key(), b0.key());
+        b0.undo();
+        assertEquals("undo did not restore key", b1.key(), b0.key());
+        b1.makeMove('a', '2', 'a', '4');
+        b1.makeMove('a', '6', 'c', '6');
+        b1.makeMove('a', '4', 'a', '2');
+        b1.makeMove('c', '6', 'a', '6');
+        assertNotEquals("key ignores numJumps", b0.key(), b1.key());
+        for (int i = 0; i < 7; i += 1) {
+            b1.undo();
+        }
+        assertEquals("undo did not restore starting key", start, b1.key());
+    }
+
+    @Test
+    public void testUndoJumps() {
+        Board b = new Board();
+        long start = b.key();
+        makeMoves(b, new String[] { "a7-c7", "a1-c1", "c7-c6" });
+        assertEquals("extend did not reset numJumps", 0, b.numJumps());
+        b.undo();
+        assertEquals("undo did not restore numJumps", 2, b.numJumps());
+        assertEquals("wrong numMoves", 2, b.numMoves());
+        b.undo();
+        b.undo();
+        assertEquals("wrong numJumps", 0, b.numJumps());
+        assertEquals("undo did not restore key", start, b.key());
+        checkBoard(b, INITIAL);
+    }
+
+    @Test
+    public void testMobility() {
+        Board b = new Board();
+        assertEquals("wrong initial red mobility", 16, b.mobility(RED));
+        assertEquals("wrong initial blue mobility", 16, b.mobility(BLUE));
+        makeMoves(b, new String[] { "g1-g3", "g7-g5", "g3-g4" });
+        assertEquals("wrong red mobility", 26, b.mobility(RED));
+        assertEquals("wrong blue mobility", 8, b.mobility(BLUE));
+        b.undo();
+        assertEquals("undo did not restore red mobility",
+                21, b.mobility(RED));
+        assertEquals("undo did not restore blue mobility",
+                21, b.mobility(BLUE));
+        Board b1 = new Board(b);
+        assertEquals("copy has wrong red mobility", 21, b1.mobility(RED));
+    }
+
+    @Test
+    public void testCounts() {
+        Board b = new Board();
+        assertEquals("wrong totalOpen", 49, b.totalOpen());
+        assertEquals("wrong numEmpty", 45, b.numEmpty());
+        b.setBlock('b', '2');
+        assertEquals("wrong totalOpen after block", 45, b.totalOpen());
+        assertEquals("wrong numEmpty after block", 41, b.numEmpty());
+        makeMoves(b, new String[] { "a7-a6", "a1-c1" });
+        assertEquals("wrong numEmpty after moves", 40, b.numEmpty());
+        Board b1 = new Board(b);
+        assertEquals("copy has wrong totalOpen", 45, b1.totalOpen());
+        b.clear();
+        assertEquals("clear did not reset totalOpen", 49, b.totalOpen());
+    }
+
+    @Test
+    public void testSearchMoves() {
+        Board b0 = new Board();
+        makeMoves(b0, GAME1);
+        Board b1 = new Board(b0);
+        int[] codes = {
+            Board.moveCode(Move.move("b7-c6")),
+            Board.moveCode(Move.move("a4-b5")),
+            Board.moveCode(Move.move("a7-c7"))
+        };
+        for (int code : codes) {
+            b1.makeSearchMove(code);
+        }
+        b0.makeMove('b', '7', 'c', '6');
+        b0.makeMove('a', '4', 'b', '5');
+        b0.makeMove('a', '7', 'c', '7');
+        assertEquals("search moves reach a different position", b0, b1);
+        assertEquals("wrong numJumps", b0.numJumps(), b1.numJumps());
+        assertEquals("search moves recorded in allMoves",
+                0, b1.allMoves().size());
+        for (int i = 0; i < codes.length; i += 1) {
+            b1.undoSearchMove();
+        }
+        checkBoard(b1, GAME1RESULT);
+        assertEquals("wrong move reconstructed", Move.move("b7-c6"),
+                b1.toMove(codes[0]));
+    }
+
+    @Test
+    public void testLegalMoves() {
+        Board b = new Board();
+        b.setBlock('d', '4');
+        makeMoves(b, UNDO2MOVES);
+        int[] codes = new int[Board.MAX_MOVES];
+        int n = b.legalMoves(codes);
+        java.util.HashSet<Integer> generated = new java.util.HashSet<>();
+        for (int i = 0; i < n; i += 1) {
+            assertTrue("duplicate move", generated.add(codes[i]));
+            assertTrue("illegal move generated",
+                    b.legalMove(b.toMove(codes[i])));
+        }
+        java.util.HashSet<Integer> expected = new java.util.HashSet<>();
+        for (char c0 = 'a'; c0 <= 'g'; c0 += 1) {
+            for (char r0 = '1'; r0 <= '7'; r0 += 1) {
+                for (char c1 = 'a'; c1 <= 'g'; c1 += 1) {
+                    for (char r1 = '1'; r1 <= '7'; r1 += 1) {
+                        Move mv = Move.move(c0, r0, c1, r1);
+                        if (b.legalMove(mv)) {
+                            expected.add(Board.moveCode(mv));
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals("wrong set of moves", expected, generated);
+    }
+
+    @Test
+    public void testVacated() {
+        Board b = new Board();
+        long a7 = 1L << Board.bitIndex(Board.index('a', '7'));
+        long c7 = 1L << Board.bitIndex(Board.index('c', '7'));
+        b.makeMove("a7-c7");
+        assertEquals(a7, b.vacated());
+        b.makeMove("g7-f7");
+        assertEquals(a7, b.vacated());
+        b.makeMove("c7-b7");
+        b.makeMove("f7-e7");
+        b.makeMove("b7-a7");
+        assertEquals(0, b.vacated());
+        b.undo();
+        assertEquals(a7, b.vacated());
+        b.undo();
+        b.undo();
+        b.undo();
+        b.undo();
+        assertEquals(0, b.vacated());
+        long b7 = 1L << Board.bitIndex(Board.index('b', '7'));
+        assertEquals(0, Board.neighbors(a7 | c7) & (a7 | c7));
+        assertEquals(a7 | c7, Board.neighbors(b7) & (a7 | c7));
+        assertEquals(a7 | b7, Board.neighbors(a7 | b7) & (a7 | b7));
+    }
+
+    @Test
+    public void testGain() {
+        Board b = new Board();
+        b.makeMove("a7-b6");
+        b.makeMove("g7-e6");
+        b.makeMove("b6-c6");
+        assertEquals(1, b.gain(Board.moveCode(Move.move('a', '1',
+                                                        'b', '2'))));
+        assertEquals(2, b.gain(Board.moveCode(Move.move('e', '6',
+                                                        'd', '6'))));
+        assertEquals(2, b.gain(Board.moveCode(Move.move('e', '6',
+                                                        'c', '7'))));
+        assertEquals(0, b.gain(Board.moveCode(Move.move('e', '6',
+                                                        'g', '6'))));
+        assertEquals(0, b.gain(Board.PASS_CODE));
+    }
+
+    @Test
+    public void testPerft() {
+        Board b = new Board();
+        assertEquals("wrong perft 1", 16, Perft.perft(b, 1));
+        assertEquals("wrong perft 2", 256, Perft.perft(b, 2));
+        makeMoves(b, GAME1);
+        long total = 0;
+        int[] codes = new int[Board.MAX_MOVES];
+        int n = b.legalMoves(codes);
+        for (int i = 0; i < n; i += 1) {
+            b.makeSearchMove(codes[i]);
+            total += Perft.perft(b, 2);
+            b.undoSearchMove();
+        }
+        assertEquals("perft disagrees with its divided counts",
+                total, Perft.perft(b, 3));
+        checkBoard(b, GAME1RESULT);
+    }
+
+    @Test
+    public void testGrow() {
+        for (char c = 'a'; c <= 'g'; c += 1) {
+            for (char r = '1'; r <= '7'; r += 1) {
+                int b = Board.bitIndex(Board.index(c, r));
+                long bit = 1L << b;
+                assertEquals("wrong grow at " + c + r,
+                        Board.ADJACENT[b] | bit, Board.grow(bit));
+                assertEquals("wrong neighbors at " + c + r,
+                        Board.ADJACENT[b], Board.neighbors(bit));
+            }
+        }
+        long a7 = 1L << Board.bitIndex(Board.index('a', '7')),
+            g7 = 1L << Board.bitIndex(Board.index('g', '7')),
+            a1 = 1L << Board.bitIndex(Board.index('a', '1')),
+            g1 = 1L << Board.bitIndex(Board.index('g', '1'));
+        long corners = a7 | g7 | a1 | g1;
+        assertEquals("corners grew wrongly", 16,
+                Long.bitCount(Board.grow(corners)));
+        assertEquals("g7 wrapped onto a7", 0, Board.grow(g7) & a7);
+        assertEquals("a1 wrapped onto g1", 0, Board.grow(a1) & g1);
+    }
+
     private static final String[] GAME1 = {
         "a7-b7", "a1-a2",
         "a7-a6", "a2-a3",
@@ -17,8 +17,9 @@ class Command {
 
     /** A list of all commands. */
     private static final String[] COMMAND_NAMES = {
-        "auto", "block", "board", "dump", "help", "manual",
-        "new", "q", "quiet", "quit", "seed", "undo", "verbose",
+        "auto", "block", "board", "book", "cache", "dump", "eval", "help",
+        "manual", "new", "option", "perft", "ponder", "q", "quiet", "quit",
+        "seed", "solve", "table", "threads", "time", "undo", "verbose",
     };
 
     /** Command types.  PIECEMOVE indicates a move of the form
@@ -27,10 +28,20 @@ class Command {
      *  programmer writes. */
     enum Type {
         COMMENT("#.*|$"),
-        AUTO("auto\\s+(red|blue)"),
+        AUTO("auto\\s+(red|blue)(?:\\s+(ai|mcts))?"),
         BLOCK("block\\s+([a-g][1-7])"),
         MANUAL("manual\\s+(red|blue)"),
         SEED("seed\\s+(\\d+)"),
+        TIME("time\\s+(\\d+)"),
+        TABLE("table\\s+(\\d+)"),
+        BOOK("book(?:\\s+(\\S+))?"),
+        CACHE("cache\\s+(\\d+)"),
+        EVAL("eval\\s+(red|blue)\\s+([a-z]+)(?:\\s+(\\S+))?"),
+        OPTION("option\\s+(red|blue)\\s+([a-z]+)\\s+(\\d+)"),
+        THREADS("threads\\s+(red|blue)\\s+(\\d+)(?:\\s+(split))?"),
+        PONDER("ponder\\s+(red|blue)\\s+(on|off)"),
+        PERFT("perft\\s+(\\d+)(?:\\s+(divide))?"),
+        SOLVE("solve(?:\\s+(\\d+))?"),
         START,
         /* Regular moves. */
         PIECEMOVE("(-|[a-g][1-7]-[a-g][1-7])"),
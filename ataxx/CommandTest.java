@@ -31,8 +31,10 @@ public class CommandTest {
     }
 
     @Test public void testAUTO() {
-        check("auto red", AUTO, "red");
-        check("auto blue", AUTO, "blue");
+        check("auto red", AUTO, "red", null);
+        check("auto blue", AUTO, "blue", null);
+        check("auto red mcts", AUTO, "red", "mcts");
+        check("auto blue ai", AUTO, "blue", "ai");
         checkError("auto green");
         checkError("auto");
         checkError("auto red foo");
@@ -70,6 +72,68 @@ public class CommandTest {
         checkError("new foo");
     }
 
+    @Test public void testTIME() {
+        check("time 500", TIME, "500");
+        checkError("time");
+        checkError("time 5s");
+    }
+
+    @Test public void testTABLE() {
+        check("table 64", TABLE, "64");
+        checkError("table");
+    }
+
+    @Test public void testBOOK() {
+        check("book openings.book", BOOK, "openings.book");
+        check("book", BOOK, (String) null);
+        checkError("book a b");
+    }
+
+    @Test public void testCACHE() {
+        check("cache 8", CACHE, "8");
+        check("cache 0", CACHE, "0");
+        checkError("cache");
+    }
+
+    @Test public void testTHREADS() {
+        check("threads red 8", THREADS, "red", "8", null);
+        check("threads blue 4 split", THREADS, "blue", "4", "split");
+        checkError("threads 4");
+    }
+
+    @Test public void testEVAL() {
+        check("eval red positional", EVAL, "red", "positional", null);
+        check("eval blue ntuple /tmp/values", EVAL, "blue", "ntuple",
+              "/tmp/values");
+        checkError("eval positional");
+    }
+
+    @Test public void testOPTION() {
+        check("option red lmr 4", OPTION, "red", "lmr", "4");
+        check("option blue futility 0", OPTION, "blue", "futility", "0");
+        checkError("option red lmr");
+    }
+
+    @Test public void testPONDER() {
+        check("ponder red on", PONDER, "red", "on");
+        check("ponder blue off", PONDER, "blue", "off");
+        checkError("ponder red");
+        checkError("ponder red yes");
+    }
+
+    @Test public void testSOLVE() {
+        check("solve", SOLVE, (String) null);
+        check("solve 1000000", SOLVE, "1000000");
+        checkError("solve foo");
+    }
+
+    @Test public void testPERFT() {
+        check("perft 4", PERFT, "4", null);
+        check("perft 3 divide", PERFT, "3", "divide");
+        checkError("perft");
+        checkError("perft 3 foo");
+    }
+
     @Test public void testMOVE() {
         check("a3-b3", PIECEMOVE, "a3-b3");
         checkError("a3b3");
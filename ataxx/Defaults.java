@@ -12,4 +12,32 @@ class Defaults {
     /** Current version designator. */
     static final String VERSION = "Attax 3.0";
 
+    /** Initial size of the AIs' transposition table, in megabytes. */
+    static final int TABLE_SIZE = 16;
+
+    /** Initial size of each AI's evaluation cache, in megabytes. */
+    static final int EVAL_CACHE_SIZE = 4;
+
+    /** Size of each AI's table of solved endgame positions, in
+     *  megabytes. */
+    static final int SOLVER_TABLE_SIZE = 16;
+
+    /** Time in milliseconds an AI spends trying to solve an endgame when
+     *  there is no time limit. */
+    static final int SOLVE_TIME = 1000;
+
+    /** Size of the table used by the solve command, in megabytes. */
+    static final int PROOF_TABLE_SIZE = 64;
+
+    /** Number of positions the solve command visits before giving up,
+     *  if not given. */
+    static final long PROOF_NODES = 10000000;
+
+    /** Number of playouts a MonteCarlo player makes per move when there
+     *  is no time limit. */
+    static final long PLAYOUTS = 20000;
+
+    /** Initial number of threads each AI searches with. */
+    static final int THREADS = 1;
+
 }
@@ -0,0 +1,379 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** An exact search of the rest of the game from positions with few
+ *  empty squares.  Positions are valued by the final margin, the
+ *  number of pieces by which the player to move finishes ahead, so that
+ *  its sign gives the win, loss, or draw.  The search follows the rules
+ *  as Board applies them, so passes, JUMP_LIMIT, and the end of the game
+ *  when neither side can move (as when the board fills up) are all
+ *  accounted for.
+ *
+ *  Unlike a Searcher, a solver has no static evaluation, and orders
+ *  moves to reach the end quickly: the table's
+ *  best move first, then by the number of pieces gained, with extends
+ *  (which bring the end nearer) before jumps that gain as much.  It has
+ *  its own table, since its scores are not comparable with a
+ *  Searcher's.
+ *  @author Tianyu Liu
+ */
+class EndgameSolver {
+
+    /** Report the times taken to solve positions with 1 .. ARGS[0] empty
+     *  squares, taking ARGS[1] positions (default 10) of each size from
+     *  games between greedy players, and giving up on each after ARGS[2]
+     *  milliseconds (default 1000).  Gives, for each size, the numbers
+     *  of positions whose outcome (win, loss, or draw) and exact margin
+     *  were found in time, and the mean and greatest times to find
+     *  them. */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: java ataxx.EndgameSolver MAXEMPTY "
+                               + "[ POSITIONS [ MSEC ] ]");
+            System.exit(1);
+        }
+        int maxEmpty = Utils.toInt(args[0]);
+        int count = args.length > 1 ? Utils.toInt(args[1]) : 10;
+        long limit = args.length > 2 ? Utils.toLong(args[2]) : 1000;
+        Random random = new Random(0);
+        EndgameSolver solver = new EndgameSolver(Defaults.TABLE_SIZE);
+        System.out.println("empty   outcome: found  mean msec   max msec"
+                           + "    margin: found  mean msec   max msec");
+        for (int empty = 1; empty <= maxEmpty; empty += 1) {
+            long[] outcomes = new long[3], margins = new long[3];
+            for (int i = 0; i < count; i += 1) {
+                Board board = greedyGame(empty, random);
+                solver.clear();
+                long start = System.nanoTime();
+                solver.solve(board, Utils.deadline(start, limit));
+                long time = System.nanoTime() - start;
+                if (solver.lower() == solver.upper()) {
+                    tally(margins, time);
+                }
+                if (solver.lower() > 0 || solver.upper() < 0
+                    || solver.lower() == solver.upper()) {
+                    tally(outcomes, solver.outcomeTime() - start);
+                }
+            }
+            System.out.printf("%5d  %15d %10.1f %10.1f  %13d %10.1f %10.1f%n",
+                              empty, outcomes[0],
+                              outcomes[1] / 1e6 / Math.max(1, outcomes[0]),
+                              outcomes[2] / 1e6, margins[0],
+                              margins[1] / 1e6 / Math.max(1, margins[0]),
+                              margins[2] / 1e6);
+        }
+    }
+
+    /** Add a time of NANOS to TOTALS, which holds a count, a sum, and a
+     *  maximum. */
+    private static void tally(long[] totals, long nanos) {
+        totals[0] += 1;
+        totals[1] += nanos;
+        totals[2] = Math.max(totals[2], nanos);
+    }
+
+    /** Return a position with EMPTY empty squares from which the game
+     *  is not over, reached by players who each make one of their moves
+     *  that gain the most pieces, chosen with RANDOM. */
+    static Board greedyGame(int empty, Random random) {
+        int[] moves = new int[Board.MAX_MOVES];
+        while (true) {
+            Board board = new Board();
+            while (board.getWinner() == null && board.numEmpty() > empty) {
+                int n = board.legalMoves(moves);
+                int best = 0, ties = 0;
+                for (int i = 0; i < n; i += 1) {
+                    int gain = board.gain(moves[i]);
+                    if (gain > best) {
+                        best = gain;
+                        ties = 0;
+                    }
+                    if (gain == best) {
+                        moves[ties] = moves[i];
+                        ties += 1;
+                    }
+                }
+                board.makeSearchMove(moves[random.nextInt(ties)]);
+            }
+            if (board.getWinner() == null) {
+                return board;
+            }
+        }
+    }
+
+    /** A solver using a table of MEGABYTES megabytes. */
+    EndgameSolver(int megabytes) {
+        _table = new TranspositionTable(megabytes);
+    }
+
+    /** Forget all positions solved. */
+    void clear() {
+        _table.clear();
+    }
+
+    /** Solve BOARD, on which the game must not be over, unless
+     *  System.nanoTime() passes DEADLINE first, and return true iff its
+     *  final margin is now known exactly.  In any case, lower() and
+     *  upper() afterwards bound the margin for the player to move with
+     *  best play, and bestMove() achieves at least lower().  BOARD is
+     *  unchanged on return.
+     *
+     *  Games can last long after the board is nearly full, since jumps
+     *  leave the number of empty squares unchanged.  So the solver works
+     *  by iterative deepening on the number of moves to the end.  At
+     *  each depth it searches twice: once counting games that have not
+     *  ended in time as lost by the player to move at the start, giving
+     *  a lower bound, and once counting them as won, giving an upper
+     *  bound.  The bounds meet once the depth covers all lines that
+     *  matter, and a win (or loss) is often proven well before then. */
+    boolean solve(Board board, long deadline) {
+        _deadline = deadline;
+        _aborted = false;
+        _nodes = 0;
+        _lower = -MAX_MARGIN;
+        _upper = MAX_MARGIN;
+        _bestMove = Searcher.NO_MOVE;
+        _outcomeTime = 0;
+        _table.newSearch();
+        for (int depth = 1; _lower < _upper; depth += 1) {
+            int lower = solve(board, 0, depth, -MAX_MARGIN, MAX_MARGIN,
+                              -MAX_MARGIN);
+            if (_aborted) {
+                break;
+            }
+            int move = _rootMove;
+            int upper = solve(board, 0, depth, -MAX_MARGIN, MAX_MARGIN,
+                              MAX_MARGIN);
+            if (_aborted) {
+                break;
+            }
+            if (lower > _lower || _bestMove == Searcher.NO_MOVE) {
+                _bestMove = move;
+            }
+            _lower = Math.max(_lower, lower);
+            _upper = Math.min(_upper, upper);
+            if (_outcomeTime == 0
+                && (_lower > 0 || _upper < 0 || _lower == _upper)) {
+                _outcomeTime = System.nanoTime();
+            }
+        }
+        return _lower == _upper;
+    }
+
+    /** Return the greatest final margin proven for the player to move by
+     *  the last solve. */
+    int lower() {
+        return _lower;
+    }
+
+    /** Return the least final margin proven for the player to move by the
+     *  last solve. */
+    int upper() {
+        return _upper;
+    }
+
+    /** Return the code of a move that achieves at least lower(). */
+    int bestMove() {
+        return _bestMove;
+    }
+
+    /** Return the value of System.nanoTime() when the last solve found
+     *  whether the game is won, lost, or drawn, or 0 if it did not. */
+    long outcomeTime() {
+        return _outcomeTime;
+    }
+
+    /** Return the number of positions visited by the last solve. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the final margin for the player to move on BOARD, reached
+     *  after PLY moves from the position being solved, supposing that
+     *  games not over after DEPTH more moves have margin HORIZON for the
+     *  player to move at ply 0.  The value is exact if it lies strictly
+     *  between ALPHA and BETA, and otherwise bounds the exact value from
+     *  the same side.  At ply 0, sets _rootMove.  Only values that do
+     *  not depend on HORIZON are used from the table, though the moves
+     *  of others guide the order of search.  If time runs out, sets
+     *  _aborted and returns a meaningless value. */
+    private int solve(Board board, int ply, int depth, int alpha, int beta,
+                      int horizon) {
+        _nodes += 1;
+        if ((_nodes & CLOCK_CHECK_MASK) == 0
+            && System.nanoTime() > _deadline) {
+            _aborted = true;
+        }
+        if (_aborted) {
+            return 0;
+        }
+        PieceColor me = board.whoseMove();
+        if (board.getWinner() != null) {
+            return board.numPieces(me) - board.numPieces(me.opposite());
+        }
+        int hashMove = Searcher.NO_MOVE;
+        long entry = _table.probe(board.key());
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            int score = TranspositionTable.score(entry);
+            int bound = TranspositionTable.bound(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) == PROVEN
+                && (bound == TranspositionTable.EXACT
+                            || bound == TranspositionTable.LOWER
+                            && score >= beta
+                            || bound == TranspositionTable.UPPER
+                            && score <= alpha)) {
+                return score;
+            }
+        }
+        if (depth == 0) {
+            _horizonLeaves += 1;
+            return ply % 2 == 0 ? horizon : -horizon;
+        }
+        long horizonLeaves = _horizonLeaves;
+        int alpha0 = alpha;
+        int[] moves = moves(ply);
+        int n = board.legalMoves(moves);
+        orderMoves(board, moves, n, hashMove);
+        int best = moves[0];
+        int bestScore = -MAX_MARGIN - 1;
+        for (int i = 0; i < n; i += 1) {
+            board.makeSearchMove(moves[i]);
+            int score;
+            if (i == 0) {
+                score = -solve(board, ply + 1, depth - 1, -beta, -alpha,
+                               horizon);
+            } else {
+                score = -solve(board, ply + 1, depth - 1, -alpha - 1,
+                               -alpha, horizon);
+                if (score > alpha && score < beta && !_aborted) {
+                    score = -solve(board, ply + 1, depth - 1, -beta,
+                                   -alpha, horizon);
+                }
+            }
+            board.undoSearchMove();
+            if (_aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves[i];
+                alpha = Math.max(alpha, score);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        int bound;
+        if (bestScore <= alpha0) {
+            bound = TranspositionTable.UPPER;
+        } else if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        if (_horizonLeaves == horizonLeaves) {
+            _table.store(board.key(), PROVEN, bestScore, bound, best);
+        } else if (entry == 0 || TranspositionTable.depth(entry) != PROVEN) {
+            _table.store(board.key(), 0, bestScore, bound, best);
+        }
+        if (ply == 0) {
+            _rootMove = best;
+        }
+        return bestScore;
+    }
+
+    /** Sort MOVES[0 .. N-1], the legal moves on BOARD, with HASHMOVE
+     *  first, then by the number of pieces gained, and then extends
+     *  before jumps. */
+    private void orderMoves(Board board, int[] moves, int n, int hashMove) {
+        if (n <= 1) {
+            return;
+        }
+        int[] keys = _orderKeys;
+        for (int i = 0; i < n; i += 1) {
+            int move = moves[i];
+            int key;
+            if (move == hashMove) {
+                key = Integer.MAX_VALUE;
+            } else {
+                key = 2 * board.gain(move);
+                if (move != Board.PASS_CODE
+                    && Board.codeFrom(move) == Board.codeTo(move)) {
+                    key += 1;
+                }
+            }
+            int j;
+            for (j = i; j > 0 && keys[j - 1] < key; j -= 1) {
+                keys[j] = keys[j - 1];
+                moves[j] = moves[j - 1];
+            }
+            keys[j] = key;
+            moves[j] = move;
+        }
+    }
+
+    /** Return the move buffer for ply PLY, allocating more buffers if
+     *  needed.  Games can run many plies past the empty squares, since
+     *  jumps do not fill squares. */
+    private int[] moves(int ply) {
+        if (ply == _moves.length) {
+            _moves = Arrays.copyOf(_moves, 2 * ply);
+        }
+        if (_moves[ply] == null) {
+            _moves[ply] = new int[Board.MAX_MOVES];
+        }
+        return _moves[ply];
+    }
+
+    /** The depth recorded in the table with values that do not depend
+     *  on the horizon.  Other entries (depth 0) serve only to order
+     *  moves. */
+    private static final int PROVEN = 1;
+
+    /** A margin greater than any possible one. */
+    private static final int MAX_MARGIN = Board.SIDE * Board.SIDE + 1;
+
+    /** Number of nodes between checks of the clock (less 1; a power of
+     *  2 less 1). */
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    /** Table of solved positions. */
+    private final TranspositionTable _table;
+
+    /** Move buffers, indexed by ply. */
+    private int[][] _moves = new int[Searcher.MAX_SEARCH_DEPTH][];
+
+    /** Sort keys used by orderMoves. */
+    private final int[] _orderKeys = new int[Board.MAX_MOVES];
+
+    /** Value of System.nanoTime() at which the current solve must
+     *  stop. */
+    private long _deadline;
+
+    /** True iff the current solve ran out of time. */
+    private boolean _aborted;
+
+    /** Bounds on the margin proven by the last solve. */
+    private int _lower, _upper;
+
+    /** Time at which the last solve found the outcome, or 0. */
+    private long _outcomeTime;
+
+    /** The best move found by the last solve, and the best move found by
+     *  the last search of the current one. */
+    private int _bestMove, _rootMove;
+
+    /** Number of positions valued by the horizon of the current
+     *  search, so far. */
+    private long _horizonLeaves;
+
+    /** Number of positions visited by the last solve. */
+    private long _nodes;
+}
@@ -0,0 +1,54 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+/** A fixed-size cache of static evaluations, indexed by Board.key(), so
+ *  that a position reached again (by transposition, or in a later
+ *  search) need not be evaluated again.  Like TranspositionTable, it is
+ *  a KeyedTable, and so safe for several threads to use at once without
+ *  locking.
+ *  @author Tianyu Liu
+ */
+class EvalCache extends KeyedTable {
+
+    /** The result of probe when a value is not in the cache.  No
+     *  evaluation is this small. */
+    static final int MISS = Integer.MIN_VALUE;
+
+    /** A cache occupying at most MEGABYTES megabytes (rounded down to a
+     *  power-of-two number of entries).  A size of 0 gives a cache that
+     *  stores nothing. */
+    EvalCache(int megabytes) {
+        super(megabytes);
+        _megabytes = megabytes;
+    }
+
+    /** Return the size requested for this cache, in megabytes. */
+    int megabytes() {
+        return _megabytes;
+    }
+
+    /** Return the cached value of the position with key KEY, or MISS if
+     *  there is none. */
+    int probe(long key) {
+        long data = find(key);
+        return data == 0 ? MISS : (int) data;
+    }
+
+    /** Record that the position with key KEY has value VALUE. */
+    void store(long key, int value) {
+        if (size() == 0) {
+            return;
+        }
+        put(index(key), key, (value & 0xffffffffL) | OCCUPIED);
+    }
+
+    /** A bit set in the data word of every occupied entry, whose low 32
+     *  bits hold the value. */
+    private static final long OCCUPIED = 1L << 32;
+
+    /** Requested size in megabytes. */
+    private final int _megabytes;
+}
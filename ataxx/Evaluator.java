@@ -0,0 +1,26 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+/** A static evaluation function for the AI's search.
+ *  @author Tianyu Liu
+ */
+interface Evaluator {
+
+    /** The value of a one-piece advantage.  Values are in units of
+     *  1/PIECE pieces so that evaluators can weigh features finer than
+     *  a piece. */
+    int PIECE = 8;
+
+    /** Return an estimate of the value of BOARD, on which the game is not
+     *  over, for the player to move. */
+    int evaluate(Board board);
+
+    /** Return true iff my values depend on Board.vacated(), which
+     *  Board.key() ignores, so that a search must tell positions with
+     *  different vacated squares apart. */
+    boolean usesVacated();
+
+}
@@ -0,0 +1,121 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Random;
+
+import static ataxx.GameException.error;
+
+/** The available Evaluators, by name, and a benchmark comparing them.
+ *  @author Tianyu Liu
+ */
+class Evaluators {
+
+    /** Names of the available evaluators.  All but the last take no
+     *  file. */
+    static final String[] NAMES = { "material", "positional", "ntuple" };
+
+    /** Return the evaluator called NAME (one of NAMES). */
+    static Evaluator forName(String name) {
+        return forName(name, null);
+    }
+
+    /** Return the evaluator called NAME (one of NAMES), reading its
+     *  values from the file FILENAME.  FILENAME must be null for
+     *  evaluators that read no file, and not null for the others. */
+    static Evaluator forName(String name, String fileName) {
+        if (name.equals("ntuple")) {
+            if (fileName == null) {
+                throw error("evaluator ntuple needs a file");
+            }
+            return new NTupleEvaluator(fileName);
+        }
+        if (fileName != null) {
+            throw error("evaluator %s takes no file", name);
+        }
+        return switch (name) {
+        case "material" -> new MaterialEvaluator();
+        case "positional" -> new PositionalEvaluator();
+        default -> throw error("unknown evaluator: %s", name);
+        };
+    }
+
+    /** Report the cost of each evaluator: the time per evaluation of
+     *  positions from random games, and the time per node of searches to
+     *  depth ARGS[0] (default 6) from some of those positions.  The
+     *  ntuple evaluator is included only if ARGS[1] names its file.  Its
+     *  time per evaluation includes bringing its State up to date from
+     *  the position evaluated before, a move earlier, which in a search
+     *  replaces the cost of following moves made and undone. */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Utils.toInt(args[0]) : 6;
+        String fileName = args.length > 1 ? args[1] : null;
+        Board[] positions = randomPositions(POSITIONS);
+        for (int pass = 0; pass < 2; pass += 1) {
+            for (String name : NAMES) {
+                if (name.equals("ntuple") && fileName == null) {
+                    continue;
+                }
+                Evaluator evaluator =
+                    forName(name, name.equals("ntuple") ? fileName : null);
+                long start = System.nanoTime();
+                long sum = 0;
+                for (int i = 0; i < EVALUATIONS; i += 1) {
+                    sum += evaluator.evaluate(positions[i % POSITIONS]);
+                }
+                double evalNanos =
+                    (double) (System.nanoTime() - start) / EVALUATIONS;
+
+                SearchOptions options = new SearchOptions();
+                options.setEvaluator(evaluator);
+                SearchPool pool = new SearchPool();
+                pool.setOptions(options);
+                TranspositionTable table =
+                    new TranspositionTable(Defaults.TABLE_SIZE);
+                long nanos = 0, nodes = 0;
+                for (int i = 0; i < POSITIONS; i += SEARCH_SPACING) {
+                    if (positions[i].getWinner() == null) {
+                        table.clear();
+                        start = System.nanoTime();
+                        pool.search(positions[i], 1, depth, Long.MAX_VALUE,
+                                    table);
+                        nanos += System.nanoTime() - start;
+                        nodes += pool.nodes();
+                    }
+                }
+                if (pass > 0) {
+                    System.out.printf("%-12s %5.1f nsec/evaluation; depth %d:"
+                                      + " %d nodes, %.0f nsec/node "
+                                      + "(checksum %d)%n", name, evalNanos,
+                                      depth, nodes, (double) nanos / nodes,
+                                      sum);
+                }
+            }
+        }
+    }
+
+    /** Return N positions taken from games of random moves with a
+     *  fixed seed. */
+    private static Board[] randomPositions(int n) {
+        Random random = new Random(0);
+        Board[] result = new Board[n];
+        int[] moves = new int[Board.MAX_MOVES];
+        Board board = new Board();
+        for (int i = 0; i < n; i += 1) {
+            if (board.getWinner() != null) {
+                board = new Board();
+            }
+            int count = board.legalMoves(moves);
+            board.makeSearchMove(moves[random.nextInt(count)]);
+            result[i] = new Board(board);
+        }
+        return result;
+    }
+
+    /** Numbers of distinct positions and of evaluations in main, and
+     *  spacing of the positions searched. */
+    private static final int POSITIONS = 1 << 12, EVALUATIONS = 1 << 24,
+        SEARCH_SPACING = 1 << 9;
+}
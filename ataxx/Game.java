@@ -28,6 +28,11 @@ class Game {
         _logging = logging;
         _seed = (long) (Math.random() * Long.MAX_VALUE);
 
+        _tableSize = Defaults.TABLE_SIZE;
+        _evalCacheSize = Defaults.EVAL_CACHE_SIZE;
+        _threads[RED.ordinal()] = _threads[BLUE.ordinal()] = Defaults.THREADS;
+        _options[RED.ordinal()] = new SearchOptions();
+        _options[BLUE.ordinal()] = new SearchOptions();
         _board = new Board();
         _board.setNotifier((b) -> _view.update((Board) b));
     }
@@ -38,6 +43,71 @@ class Game {
         return _board;
     }
 
+    /** Return the time limit in milliseconds for each AI move, or 0 if
+     *  AIs search to a fixed depth instead. */
+    long moveTime() {
+        return _moveTime;
+    }
+
+    /** Return the size in megabytes of each AI's table of search
+     *  results. */
+    int tableSize() {
+        return _tableSize;
+    }
+
+    /** Set the size of each AI's table of search results to MEGABYTES
+     *  (0 disables it). */
+    void setTableSize(int megabytes) {
+        _tableSize = megabytes;
+    }
+
+    /** Return the opening book used by AIs in this game, or null if
+     *  none. */
+    OpeningBook book() {
+        return _book;
+    }
+
+    /** Have AIs use the opening book in the file named FILENAME, or none
+     *  if FILENAME is null. */
+    void setBook(String fileName) {
+        _book = fileName == null ? null : new OpeningBook(fileName);
+    }
+
+    /** Return the size in megabytes of each AI's cache of static
+     *  values. */
+    int evalCacheSize() {
+        return _evalCacheSize;
+    }
+
+    /** Set the size of each AI's cache of static values to MEGABYTES
+     *  (0 disables it). */
+    void setEvalCacheSize(int megabytes) {
+        _evalCacheSize = megabytes;
+    }
+
+    /** Return the number of threads the AI playing COLOR searches
+     *  with. */
+    int threads(PieceColor color) {
+        return _threads[color.ordinal()];
+    }
+
+    /** Return true iff the AI playing COLOR splits its search among
+     *  its threads (see SplitSearch) rather than sharing a table. */
+    boolean splitSearch(PieceColor color) {
+        return _split[color.ordinal()];
+    }
+
+    /** Return true iff the AI playing COLOR searches in the background
+     *  while its opponent moves. */
+    boolean ponders(PieceColor color) {
+        return _ponder[color.ordinal()];
+    }
+
+    /** Return the selectivity settings for the AI playing COLOR. */
+    SearchOptions options(PieceColor color) {
+        return _options[color.ordinal()];
+    }
+
     /** Return true iff the current game is not over. */
     boolean gameInProgress() {
         return _board.getWinner() == null;
@@ -52,7 +122,7 @@ class Game {
         System.out.println("Welcome to " + Defaults.VERSION);
         _board.clear();
         setManual(RED);
-        setAuto(BLUE);
+        setAuto(BLUE, null);
         _exit = -1;
         winnerAnnounced = false;
         while (_exit < 0) {
@@ -66,6 +136,7 @@ class Game {
                 }
             } else if (!gameInProgress()) {
                 if (!winnerAnnounced) {
+                    stopThinking();
                     _reporter.announceWin(_board.getWinner());
                     winnerAnnounced = true;
                 }
@@ -111,6 +182,7 @@ class Game {
     /** Place a block at the position PLACE (in crformat), and in its three
      *  reflected squares symmetrically. */
     void block(String place) {
+        stopThinking();
         if (_board.numMoves() > 0) {
             throw error("block-setting must precede first move.");
         }
@@ -123,6 +195,7 @@ class Game {
     /** Undo the last move, and also the previous one, if that player is
      *  automatic. */
     void undo() {
+        stopThinking();
         if (_board.numMoves() > 0) {
             _board.undo();
             if (_board.numMoves() > 0
@@ -148,9 +221,17 @@ class Game {
         _reporter.msg("* %s wins.", _board.getWinner().toString());
     }
 
-    /** Make the player of COLOR an AI for subsequent moves. */
-    private void setAuto(PieceColor color) {
-        setPlayer(color, new AI(this, color, _seed));
+    /** Make the player of COLOR an automated player of the kind named
+     *  KIND for subsequent moves: "ai" (the default, if KIND is null)
+     *  for an AI, or "mcts" for a MonteCarlo. */
+    private void setAuto(PieceColor color, String kind) {
+        if (kind == null || kind.equals("ai")) {
+            setPlayer(color, new AI(this, color, _seed));
+        } else if (kind.equals("mcts")) {
+            setPlayer(color, new MonteCarlo(this, color, _seed));
+        } else {
+            throw error("unknown kind of player: %s", kind);
+        }
         _seed += 1;
     }
 
@@ -167,12 +248,30 @@ class Game {
 
     /** Set getPlayer(COLOR) to PLAYER. */
     private void setPlayer(PieceColor color, Player player) {
+        if (getPlayer(color) != null) {
+            getPlayer(color).stopThinking();
+        }
         _players[color.ordinal()] = player;
     }
 
     /** Clear the board to its initial state. */
     void clear() {
+        stopThinking();
         _board.clear();
+        for (Player player : _players) {
+            if (player != null) {
+                player.forget();
+            }
+        }
+    }
+
+    /** Have all players stop thinking in the background. */
+    private void stopThinking() {
+        for (Player player : _players) {
+            if (player != null) {
+                player.stopThinking();
+            }
+        }
     }
 
     /** Print the current board using standard board-dump format. */
@@ -190,6 +289,33 @@ class Game {
         printHelpResource(HELP, System.out);
     }
 
+    /** Report the number of positions DEPTH moves from the current
+     *  position, broken down by first move if DIVIDE. */
+    private void perft(int depth, boolean divide) {
+        Perft.report(new Board(_board), depth, divide, _reporter);
+    }
+
+    /** Report whether the player to move wins, draws, or loses the
+     *  current position with best play, visiting at most MAXNODES
+     *  positions. */
+    private void solve(long maxNodes) {
+        if (_board.getWinner() != null) {
+            throw error("game is over");
+        }
+        ProofNumberSearch.report(new Board(_board), maxNodes,
+                                 Defaults.PROOF_TABLE_SIZE, _reporter);
+    }
+
+    /** Have the AI playing COLOR search with N threads, splitting the
+     *  search among them iff SPLIT. */
+    private void setThreads(PieceColor color, int n, boolean split) {
+        if (n < 1) {
+            throw error("need at least one thread");
+        }
+        _threads[color.ordinal()] = n;
+        _split[color.ordinal()] = split;
+    }
+
     /** Seed the random-number generator with SEED. */
     private void setSeed(long seed) {
         _seed = seed;
@@ -205,7 +331,7 @@ class Game {
             case COMMENT:
                 break;
             case AUTO:
-                setAuto(parseColor(parts[0]));
+                setAuto(parseColor(parts[0]), parts[1]);
                 break;
             case BOARD:
                 printBoard();
@@ -231,6 +357,33 @@ class Game {
             case SEED:
                 setSeed(toLong(parts[0]));
                 break;
+            case TIME:
+                _moveTime = toLong(parts[0]);
+                break;
+            case TABLE:
+                setTableSize(toInt(parts[0]));
+                break;
+            case BOOK:
+                setBook(parts[0]);
+                break;
+            case CACHE:
+                setEvalCacheSize(toInt(parts[0]));
+                break;
+            case EVAL:
+                options(parseColor(parts[0]))
+                    .setEvaluator(Evaluators.forName(parts[1], parts[2]));
+                break;
+            case OPTION:
+                options(parseColor(parts[0])).set(parts[1], toInt(parts[2]));
+                break;
+            case PONDER:
+                _ponder[parseColor(parts[0]).ordinal()] =
+                    parts[1].equals("on");
+                break;
+            case THREADS:
+                setThreads(parseColor(parts[0]), toInt(parts[1]),
+                           parts[2] != null);
+                break;
             case VERBOSE:
                 _verbose = true;
                 break;
@@ -243,6 +396,13 @@ class Game {
             case PIECEMOVE:
                 makeMove(parts[0]);
                 break;
+            case PERFT:
+                perft(toInt(parts[0]), parts[1] != null);
+                break;
+            case SOLVE:
+                solve(parts[0] == null ? Defaults.PROOF_NODES
+                      : toLong(parts[0]));
+                break;
             case ERROR:
                 throw error("Unknown command.");
             default:
@@ -295,6 +455,31 @@ class Game {
      */
     private long _seed;
 
+    /** Time limit for AI moves in milliseconds (0 for none). */
+    private long _moveTime;
+
+    /** Size in megabytes of each AI's transposition table. */
+    private int _tableSize;
+
+    /** Opening book shared by the AIs in this game, or null. */
+    private OpeningBook _book;
+
+    /** Size in megabytes of each AI's evaluation cache. */
+    private int _evalCacheSize;
+
+    /** Number of threads for the AI playing each color, indexed by
+     *  color. */
+    private final int[] _threads = new int[PieceColor.values().length];
+    /** Selectivity settings for the AI playing each color, indexed by
+     *  color. */
+    private final SearchOptions[] _options =
+        new SearchOptions[PieceColor.values().length];
+    /** For each color, true iff its AI splits its search among its
+     *  threads. */
+    private final boolean[] _split = new boolean[PieceColor.values().length];
+    /** For each color, true iff its AI ponders. */
+    private final boolean[] _ponder = new boolean[PieceColor.values().length];
+
     /** When set to a non-negative value, indicates that play should terminate
      *  at the earliest possible point, returning _exit.  When negative,
      *  indicates that the session is not over. */
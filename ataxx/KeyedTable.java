@@ -0,0 +1,96 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+
+/** The storage shared by TranspositionTable and EvalCache: a fixed-size,
+ *  direct-mapped table of 64-bit data words indexed by Board.key(), kept
+ *  in primitive arrays, one key and one data word per entry, 16 bytes in
+ *  all.  A data word of 0 marks an empty entry, so subclasses must never
+ *  store 0.
+ *
+ *  Several threads may probe and store at once without locking.  Each
+ *  entry holds its key xor'ed with its data word rather than the key
+ *  itself, so that if one thread reads an entry while another is
+ *  writing it, the mixed key and data will (almost certainly) fail to
+ *  match any position's key, and the probe simply misses.
+ *  @author Tianyu Liu
+ */
+abstract class KeyedTable {
+
+    /** Bytes occupied by one entry. */
+    static final int ENTRY_SIZE = 16;
+
+    /** A table occupying at most MEGABYTES megabytes (rounded down to a
+     *  power-of-two number of entries).  A size of 0 gives a table that
+     *  stores nothing. */
+    KeyedTable(int megabytes) {
+        long entries = ((long) megabytes << 20) / ENTRY_SIZE;
+        int size = entries == 0 ? 0 : Integer.highestOneBit(
+            (int) Math.min(entries, 1 << 30));
+        _keys = new long[size];
+        _data = new long[size];
+        _mask = size - 1;
+    }
+
+    /** Return the number of entries in this table. */
+    int size() {
+        return _keys.length;
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        Arrays.fill(_keys, 0);
+        Arrays.fill(_data, 0);
+    }
+
+    /** Return the data word stored for the position with key KEY, or 0
+     *  if there is none. */
+    final long find(long key) {
+        if (_keys.length == 0) {
+            return 0;
+        }
+        int i = index(key);
+        long data = _data[i];
+        if (data == 0 || (_keys[i] ^ data) != key) {
+            return 0;
+        }
+        return data;
+    }
+
+    /** Return the number of the entry for the position with key KEY.
+     *  The table must not be empty. */
+    final int index(long key) {
+        return (int) key & _mask;
+    }
+
+    /** Return the data word in entry I, or 0 if it is empty, whatever
+     *  position it belongs to. */
+    final long data(int i) {
+        return _data[i];
+    }
+
+    /** Return true iff DATA, read from entry I, belongs to the position
+     *  with key KEY. */
+    final boolean holds(int i, long key, long data) {
+        return (_keys[i] ^ data) == key;
+    }
+
+    /** Set entry I to hold DATA, which must not be 0, for the position
+     *  with key KEY. */
+    final void put(int i, long key, long data) {
+        _keys[i] = key ^ data;
+        _data[i] = data;
+    }
+
+    /** Keys of the positions in each entry, xor'ed with their data
+     *  words. */
+    private final long[] _keys;
+    /** Data word of each entry, or 0 if empty. */
+    private final long[] _data;
+    /** Mask giving the entry index from a key. */
+    private final int _mask;
+}
@@ -28,13 +28,18 @@ public class Main {
      *       --log: Print commands.
      *       --strict: Strict mode---players errors cause error exit.
      *       --debug: Set level of debugging information.
+     *       --table: Set size of AI transposition table in megabytes.
+     *       --cache: Set size of AI evaluation caches in megabytes.
+     *       --book: Set file containing the AIs' opening book.
      *  Trailing arguments are input files; the standard input is the
      *  default.
      */
     public static void main(String[] args0) {
         CommandArgs args =
             new CommandArgs("--display{0,1} --strict --version --timing --log"
-                            + " --debug=(\\d+){0,1} --=(.*){0,}", args0);
+                            + " --debug=(\\d+){0,1} --table=(\\d+){0,1}"
+                            + " --cache=(\\d+){0,1} --book=(.+){0,1}"
+                            + " --=(.*){0,}", args0);
 
 
         System.out.println("CS61B Ataxx! Version 3.0");
@@ -50,6 +55,7 @@ public class Main {
         }
 
         _strict = args.contains("--strict");
+        _timing = args.contains("--timing");
         boolean log = args.contains("--log");
         if (args.contains("--debug")) {
             Utils.setMessageLevel(args.getInt("--debug"));
@@ -83,6 +89,20 @@ public class Main {
             game = new Game(new TextSource(inReaders),
                             (b) -> { }, new TextReporter(), log);
         }
+        if (args.contains("--table")) {
+            game.setTableSize(args.getInt("--table"));
+        }
+        if (args.contains("--book")) {
+            try {
+                game.setBook(args.getFirst("--book"));
+            } catch (GameException excp) {
+                System.err.println(excp.getMessage());
+                System.exit(1);
+            }
+        }
+        if (args.contains("--cache")) {
+            game.setEvalCacheSize(args.getInt("--cache"));
+        }
         System.exit(game.play());
     }
 
@@ -110,9 +130,20 @@ public class Main {
     /** End the timing started with the last call to startTiming().
      *  Report result if we are timing. */
     static void endTiming() {
+        endTiming(null);
+    }
+
+    /** End the timing started with the last call to startTiming().
+     *  Report result, followed by DETAILS unless null, if we are
+     *  timing. */
+    static void endTiming(String details) {
         if (_timing) {
             long time = System.currentTimeMillis() - _startTime;
-            System.err.printf("[%d msec]%n", time);
+            if (details == null) {
+                System.err.printf("[%d msec]%n", time);
+            } else {
+                System.err.printf("[%d msec; %s]%n", time, details);
+            }
             _maxTime = Math.max(_maxTime, time);
             _totalTime += time;
             _numTimedOps += 1;
@@ -0,0 +1,23 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+/** An Evaluator that counts pieces and nothing else.
+ *  @author Tianyu Liu
+ */
+class MaterialEvaluator implements Evaluator {
+
+    @Override
+    public int evaluate(Board board) {
+        PieceColor me = board.whoseMove();
+        return PIECE * (board.numPieces(me) - board.numPieces(me.opposite()));
+    }
+
+    @Override
+    public boolean usesVacated() {
+        return false;
+    }
+
+}
@@ -0,0 +1,69 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+/** A Player that computes its own moves by Monte Carlo tree search
+ *  (see MonteCarloSearch), as an alternative to AI.  It uses the game's
+ *  time limit and thread count, but no table, opening book, or
+ *  evaluator.
+ *  @author Tianyu Liu
+ */
+class MonteCarlo extends Player {
+
+    /** A new player for GAME that will play MYCOLOR.  SEED initializes
+     *  the random-number generator used to choose playouts, so that
+     *  identical seeds produce identical behaviour (with one thread and
+     *  no time limit). */
+    MonteCarlo(Game game, PieceColor myColor, long seed) {
+        super(game, myColor);
+        _search = new MonteCarloSearch(seed);
+    }
+
+    @Override
+    boolean isAuto() {
+        return true;
+    }
+
+    @Override
+    String getMove() {
+        if (!getBoard().canMove(myColor())) {
+            game().reportMove(Move.pass(), myColor());
+            return "-";
+        }
+        Main.startTiming();
+        Move move = findMove();
+        Main.endTiming(_search.statistics());
+        game().reportMove(move, myColor());
+        return move.toString();
+    }
+
+    /** Return a move for me from the current position, assuming there
+     *  is a move.  Searches until the time limit, if any, runs out, and
+     *  otherwise for PLAYOUTS playouts. */
+    private Move findMove() {
+        Board b = new Board(getBoard());
+        long limit = game().moveTime();
+        long playouts = Long.MAX_VALUE;
+        long deadline = Long.MAX_VALUE;
+        if (limit <= 0) {
+            playouts = Defaults.PLAYOUTS;
+        } else {
+            deadline = Utils.deadline(System.nanoTime(), limit);
+        }
+        long start = System.nanoTime();
+        int best = _search.search(b, game().threads(myColor()), playouts,
+                                  deadline);
+        long nanos = Math.max(1, System.nanoTime() - start);
+        Utils.debug(1, "[%s made %d playouts with %d thread(s) "
+                    + "(%d/sec), %d nodes, %s]", myColor(),
+                    _search.playouts(), game().threads(myColor()),
+                    (long) (_search.playouts() * 1e9 / nanos),
+                    _search.nodes(), _search.statistics());
+        return b.toMove(best);
+    }
+
+    /** The search I use to find moves. */
+    private final MonteCarloSearch _search;
+}
@@ -0,0 +1,366 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static ataxx.PieceColor.*;
+
+/** A Monte Carlo tree search (MCTS) for the best move in a position.
+ *  Rather than evaluating positions, it plays many games out to the
+ *  end with nearly random moves ("playouts", made by Playout, which
+ *  favors moves that gain more pieces), and grows a tree of the
+ *  positions at the start of those games, choosing each next game's
+ *  start by UCT: at each position of the tree it takes the move whose
+ *  results so far, plus a bonus for having been tried less, are best for
+ *  the player making it.  The move played is the one tried most.
+ *
+ *  Positions in the tree whose outcome is certain are marked proven
+ *  ("MCTS-solver"): those at which the game is over, those with a move
+ *  to a position lost for the opponent, and those whose moves are all
+ *  proven.  Proven positions are not played out again, moves to proven
+ *  losses are not tried, and the search stops once the root is proven.
+ *
+ *  Several threads may share one tree.  Each plays out games on its own
+ *  board, and updates the tree under a lock, which the much longer
+ *  playouts do not hold.  A thread counts the moves along its way
+ *  through the tree as tried and lost ("virtual loss") until its game's
+ *  result is known, so that the other threads meanwhile tend to try
+ *  other moves.
+ *  @author Tianyu Liu
+ */
+class MonteCarloSearch {
+
+    /** A search whose random choices are made with a generator seeded
+     *  with SEED. */
+    MonteCarloSearch(long seed) {
+        _random = new Random(seed);
+    }
+
+    /** Return the code of the best move found on BOARD, on which the
+     *  game must not be over, by a search with THREADS threads that
+     *  stops after PLAYOUTS playouts, when System.nanoTime() passes
+     *  DEADLINE, or when the root is proven, whichever comes first.
+     *  BOARD is unchanged on return. */
+    int search(Board board, int threads, long playouts, long deadline) {
+        _root = new Node(Searcher.NO_MOVE);
+        _nodes = 1;
+        _playouts = 0;
+        _maxPlayouts = playouts;
+        _deadline = deadline;
+        Thread[] helpers = new Thread[threads - 1];
+        for (int i = 0; i < helpers.length; i += 1) {
+            Worker worker = new Worker(board, _random.nextLong());
+            helpers[i] = new Thread(worker::run);
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+        new Worker(board, _random.nextLong()).run();
+        for (Thread helper : helpers) {
+            while (true) {
+                try {
+                    helper.join();
+                    break;
+                } catch (InterruptedException excp) {
+                    continue;
+                }
+            }
+        }
+        return bestChild(_root).move;
+    }
+
+    /** Return the number of playouts made (or proven positions reached
+     *  instead) by the last search. */
+    long playouts() {
+        return _playouts;
+    }
+
+    /** Return the number of positions in the tree of the last search. */
+    int nodes() {
+        return _nodes;
+    }
+
+    /** Return true iff the last search proved the outcome of its
+     *  position. */
+    boolean proven() {
+        return _root.proven != UNPROVEN;
+    }
+
+    /** Return a summary of the result of the last search, for the
+     *  player to move. */
+    String statistics() {
+        Node best = bestChild(_root);
+        if (_root.proven != UNPROVEN) {
+            return String.format("proven %s",
+                                 PROVEN_NAMES[1 - _root.proven]);
+        }
+        return String.format("best move tried %d times, won %.1f%%",
+                             best.visits,
+                             100.0 * best.wins / Math.max(1, best.visits));
+    }
+
+    /** Return the child of NODE to play: one that wins, if any is proven
+     *  to, or else the one tried most among those not proven to lose. */
+    private Node bestChild(Node node) {
+        Node best = null;
+        for (Node child : node.children) {
+            if (child.proven == WON) {
+                return child;
+            }
+            if (best == null || rank(child) > rank(best)) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /** Return the rank of CHILD, a node already searched, when choosing a
+     *  move to play: greater for more tries, but least when CHILD is
+     *  proven lost. */
+    private static long rank(Node child) {
+        return child.proven == LOST ? -1 : child.visits;
+    }
+
+    /** A position in the tree. */
+    private static class Node {
+        /** A node reached by MOVE. */
+        Node(int move) {
+            this.move = move;
+        }
+
+        /** The code of the move reaching this position. */
+        final int move;
+        /** The positions reached by each move from this one, or null if
+         *  not yet expanded. */
+        Node[] children;
+        /** Number of playouts through this position, counting those in
+         *  progress. */
+        int visits;
+        /** Games won through this position by the player who moved to
+         *  it, counting draws as half. */
+        double wins;
+        /** WON, LOST or DRAWN if this position is proven to have that
+         *  outcome for the player who moved to it, and otherwise
+         *  UNPROVEN. */
+        int proven = UNPROVEN;
+    }
+
+    /** One thread's share of a search. */
+    private class Worker {
+        /** A worker searching from a copy of BOARD, making random choices
+         *  with a generator seeded with SEED. */
+        Worker(Board board, long seed) {
+            _board = new Board(board);
+            _rand = new Random(seed);
+            _playout = new Playout(_rand.nextLong(), true);
+        }
+
+        /** Search until the search is to stop. */
+        void run() {
+            while (true) {
+                int depth;
+                synchronized (MonteCarloSearch.this) {
+                    if (_playouts > 0
+                        && (_root.proven != UNPROVEN
+                            || _playouts >= _maxPlayouts
+                            || System.nanoTime() > _deadline)) {
+                        return;
+                    }
+                    _playouts += 1;
+                    depth = descend();
+                }
+                Node leaf = _path[depth];
+                double result;
+                if (leaf.proven != UNPROVEN) {
+                    result = (leaf.proven + 1) / 2.0;
+                } else {
+                    result = playout();
+                }
+                synchronized (MonteCarloSearch.this) {
+                    update(depth, result);
+                }
+                for (int i = 0; i < depth; i += 1) {
+                    _board.undoSearchMove();
+                }
+            }
+        }
+
+        /** Choose a leaf of the tree by UCT from the root, expanding the
+         *  tree by one position if it is not proven, and making the moves
+         *  to it on my board.  Record the nodes on the way in _path and
+         *  count each as visited.  Return the leaf's depth. */
+        private int descend() {
+            Node node = _root;
+            int depth = 0;
+            node.visits += 1;
+            _path[0] = node;
+            while (node.proven == UNPROVEN) {
+                if (node.children == null) {
+                    if (node.visits < EXPAND_VISITS && depth > 0
+                        || _nodes >= MAX_NODES) {
+                        break;
+                    }
+                    expand(node);
+                }
+                node = select(node);
+                _board.makeSearchMove(node.move);
+                depth += 1;
+                node.visits += 1;
+                if (depth == _path.length) {
+                    _path = Arrays.copyOf(_path, 2 * depth);
+                }
+                _path[depth] = node;
+                if (node.children == null) {
+                    prove(node);
+                }
+            }
+            return depth;
+        }
+
+        /** Give NODE, the position on my board, a child for each legal
+         *  move, in random order. */
+        private void expand(Node node) {
+            int n = _board.legalMoves(_moves);
+            for (int i = n - 1; i > 0; i -= 1) {
+                int j = _rand.nextInt(i + 1);
+                int move = _moves[i];
+                _moves[i] = _moves[j];
+                _moves[j] = move;
+            }
+            node.children = new Node[n];
+            for (int i = 0; i < n; i += 1) {
+                node.children[i] = new Node(_moves[i]);
+            }
+            _nodes += n;
+        }
+
+        /** Return the child of NODE chosen by UCT, trying each once
+         *  before trying any again, and never trying those proven to lose
+         *  unless all are. */
+        private Node select(Node node) {
+            double logVisits = Math.log(node.visits);
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : node.children) {
+                double value;
+                if (child.visits == 0) {
+                    return child;
+                } else if (child.proven == LOST) {
+                    value = -1;
+                } else {
+                    value = child.wins / child.visits
+                        + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                }
+                if (value > bestValue) {
+                    best = child;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /** Mark NODE, the position on my board, as proven if the game is
+         *  over there. */
+        private void prove(Node node) {
+            PieceColor winner = _board.getWinner();
+            if (winner == EMPTY) {
+                node.proven = DRAWN;
+            } else if (winner != null) {
+                node.proven = winner == _board.whoseMove() ? LOST : WON;
+            }
+        }
+
+        /** Play a game out from the position on my board.  Return 1,
+         *  0.5 or 0 as the player who moved to this position wins, draws
+         *  or loses. */
+        private double playout() {
+            PieceColor winner = _playout.play(_board);
+            if (winner == EMPTY) {
+                return 0.5;
+            }
+            return winner == _board.whoseMove() ? 0 : 1;
+        }
+
+        /** Record RESULT (as returned by playout) for the node at DEPTH in
+         *  _path and those above it, and record proofs that follow from
+         *  its being proven. */
+        private void update(int depth, double result) {
+            boolean proving = _path[depth].proven != UNPROVEN;
+            for (int d = depth; d >= 0; d -= 1) {
+                Node node = _path[d];
+                node.wins += result;
+                result = 1 - result;
+                if (proving && d > 0) {
+                    proving = proveParent(_path[d - 1], node);
+                }
+            }
+        }
+
+        /** Mark PARENT as proven if that follows from the proof of
+         *  CHILD, one of its children, and return true iff it does. */
+        private boolean proveParent(Node parent, Node child) {
+            if (child.proven == WON) {
+                parent.proven = LOST;
+                return true;
+            }
+            int best = LOST;
+            for (Node sibling : parent.children) {
+                if (sibling.proven == UNPROVEN) {
+                    return false;
+                }
+                best = Math.max(best, sibling.proven);
+            }
+            parent.proven = -best;
+            return true;
+        }
+
+        /** My copy of the board, positioned at the root except during
+         *  descent and playouts. */
+        private final Board _board;
+        /** My random-number generator. */
+        private final Random _rand;
+        /** Plays out games for me. */
+        private final Playout _playout;
+        /** The nodes from the root to the current leaf. */
+        private Node[] _path = new Node[Searcher.MAX_SEARCH_DEPTH];
+        /** Move buffer. */
+        private final int[] _moves = new int[Board.MAX_MOVES];
+    }
+
+    /** Values of Node.proven.  WON, DRAWN, and LOST are 1, 0, and -1, so
+     *  that the outcome for the other player is the negation. */
+    private static final int WON = 1, DRAWN = 0, LOST = -1, UNPROVEN = 2;
+
+    /** Names of outcomes, indexed by 1 - Node.proven. */
+    private static final String[] PROVEN_NAMES = { "loss", "draw", "win" };
+
+    /** Weight of the bonus for trying moves tried less often. */
+    private static final double EXPLORATION = 0.7;
+
+    /** Number of visits to a position (other than the root) before its
+     *  moves are added to the tree. */
+    private static final int EXPAND_VISITS = 2;
+
+    /** Greatest number of positions in the tree. */
+    private static final int MAX_NODES = 4000000;
+
+    /** The root of the current tree. */
+    private Node _root;
+
+    /** Number of positions in the current tree. */
+    private int _nodes;
+
+    /** Number of playouts started in the current search, and the limit
+     *  on that. */
+    private long _playouts, _maxPlayouts;
+
+    /** Value of System.nanoTime() at which the current search must
+     *  stop. */
+    private long _deadline;
+
+    /** Source of the seeds of the workers' random-number generators. */
+    private final Random _random;
+}
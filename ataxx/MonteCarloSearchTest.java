@@ -0,0 +1,62 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of the MonteCarloSearch class.
+ *  @author Tianyu Liu
+ */
+public class MonteCarloSearchTest {
+
+    /** Return the exact final margin of BOARD for the player to move. */
+    private static int solved(Board board) {
+        EndgameSolver solver = new EndgameSolver(1);
+        assertTrue("position not solved",
+                   solver.solve(board, Long.MAX_VALUE));
+        return solver.lower();
+    }
+
+    /** Check that the search proves the outcome of positions with one
+     *  and with two empty squares, and picks a move that achieves it.
+     *  The seed gives positions that the EndgameSolver checks quickly;
+     *  with some others, the pieces can jump back and forth until the
+     *  jump limit, and checking takes over a minute. */
+    @Test
+    public void testProvesEndgames() {
+        Random random = new Random(1);
+        MonteCarloSearch search = new MonteCarloSearch(0);
+        for (int empty = 1; empty <= 2; empty += 1) {
+            Board board = EndgameSolver.greedyGame(empty, random);
+            int move = search.search(board, 1, PLAYOUTS, Long.MAX_VALUE);
+            assertTrue("endgame not proven", search.proven());
+            Board next = new Board(board);
+            next.makeSearchMove(move);
+            int outcome = next.getWinner() == null ? -solved(next)
+                : next.numPieces(board.whoseMove())
+                - next.numPieces(next.whoseMove());
+            assertEquals("move does not achieve the best outcome",
+                         Integer.signum(solved(board)),
+                         Integer.signum(outcome));
+        }
+    }
+
+    @Test
+    public void testThreads() {
+        MonteCarloSearch search = new MonteCarloSearch(0);
+        Board board = new Board();
+        int move = search.search(board, 3, 2000, Long.MAX_VALUE);
+        assertTrue(board.legalMove(board.toMove(move)));
+        assertTrue(search.playouts() >= 2000);
+    }
+
+    /** Limit on playouts in these tests. */
+    private static final long PLAYOUTS = 5000;
+
+}
@@ -0,0 +1,443 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static ataxx.Board.SIDE;
+import static ataxx.PieceColor.*;
+import static ataxx.GameException.error;
+
+/** An Evaluator that adds to the piece count the values of patterns
+ *  ("n-tuples"): for each of a fixed set of sequences of squares, the
+ *  value that a table gives to the contents of those squares, read as a
+ *  base-3 number with a digit for each square (0 for empty or blocked,
+ *  1 for the player to move, 2 for the opponent).  The tuples are the
+ *  3x3 blocks, the edges, and a ten-square triangle in each corner, each
+ *  in all eight orientations of the board, with one table for all
+ *  orientations of a tuple.  Values are in 1/PIECE pieces, and are read
+ *  from a file made by main, which learns them from games against
+ *  itself.  Which side is to move matters a great deal in Ataxx, where
+ *  a single move may capture several pieces, so the digits are relative
+ *  to it rather than to Red and Blue.
+ *
+ *  Rather than reading every tuple at each evaluation, the evaluator
+ *  keeps a State for each thread that uses it, which holds each tuple's
+ *  number and the total of the values for each side to move for the
+ *  position last evaluated in that thread.  A search thread evaluates
+ *  only the Board it searches, so this is a State per searching Board,
+ *  and two players with different evaluators never share one.  The
+ *  State is brought up to date at each evaluation by changing the
+ *  digits of just the squares whose contents differ from those of the
+ *  last position evaluated.  Consecutive positions a search evaluates
+ *  are a few moves apart, so an evaluation costs a few table lookups
+ *  per square changed, and making and undoing moves costs nothing.
+ *  @author Tianyu Liu
+ */
+class NTupleEvaluator implements Evaluator {
+
+    /** Learn values by playing ARGS[1] games, and write them to the file
+     *  ARGS[0].  In each position, the player to move finds the move
+     *  that leaves the position with the best value for it, makes that
+     *  move (or, with probability EXPLORE, a random one), and moves the
+     *  value of the position towards the value so found (a form of
+     *  "TD(0)"), using the final score where the game is over.
+     *  Continues from the values in the file ARGS[2], if given. */
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: java ataxx.NTupleEvaluator FILE "
+                               + "GAMES [ START ]");
+            System.exit(1);
+        }
+        float[][] values = newValues();
+        NTupleEvaluator start = args.length == 3
+            ? new NTupleEvaluator(args[2]) : new NTupleEvaluator();
+        for (int k = 0; k < values.length; k += 1) {
+            for (int i = 0; i < values[k].length; i += 1) {
+                values[k][i] = start._values[k][i];
+            }
+        }
+        int games = Utils.toInt(args[1]);
+        Random random = new Random(0);
+        long time = System.nanoTime();
+        double error = 0;
+        for (int game = 1; game <= games; game += 1) {
+            error += train(values, random);
+            if (game % REPORT_INTERVAL == 0) {
+                System.out.printf("%d games, %d sec: mean squared error "
+                                  + "%.1f%n", game,
+                                  (System.nanoTime() - time) / 1000000000L,
+                                  error / REPORT_INTERVAL);
+                error = 0;
+            }
+        }
+        try {
+            write(args[0], values);
+        } catch (IOException excp) {
+            System.err.printf("Could not write %s: %s%n", args[0],
+                              excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Play a game, learning from it as described for main with
+     *  VALUES, a value table for each of TABLE_SIZES, and RANDOM.
+     *  Return the mean squared error of the values of the positions
+     *  reached. */
+    private static float train(float[][] values, Random random) {
+        Board board = new Board();
+        int[] moves = new int[Board.MAX_MOVES];
+        float error = 0;
+        int positions = 0;
+        while (board.getWinner() == null) {
+            int n = board.legalMoves(moves);
+            int best = moves[0];
+            float bestValue = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i += 1) {
+                board.makeSearchMove(moves[i]);
+                float value = -value(board, values);
+                board.undoSearchMove();
+                if (value > bestValue) {
+                    best = moves[i];
+                    bestValue = value;
+                }
+            }
+            float delta = bestValue - value(board, values);
+            update(board, values, LEARNING_RATE * delta);
+            error += delta * delta;
+            positions += 1;
+            if (random.nextFloat() < EXPLORE) {
+                best = moves[random.nextInt(n)];
+            }
+            board.makeSearchMove(best);
+        }
+        return error / Math.max(1, positions);
+    }
+
+    /** Return the value of BOARD for the player to move according to
+     *  VALUES: the final score if the game is over, and otherwise the
+     *  piece count plus the values of the tuples. */
+    private static float value(Board board, float[][] values) {
+        PieceColor me = board.whoseMove();
+        float result =
+            PIECE * (board.numPieces(me) - board.numPieces(me.opposite()));
+        if (board.getWinner() == null) {
+            int[] index = ZERO.state(board).index(me);
+            for (int t = 0; t < TUPLES.length; t += 1) {
+                result += values[TABLE[t]][index[t]];
+            }
+        }
+        return result;
+    }
+
+    /** Add CHANGE to the values in VALUES of the tuples of BOARD for the
+     *  player to move, divided evenly among them. */
+    private static void update(Board board, float[][] values,
+                               float change) {
+        int[] index = ZERO.state(board).index(board.whoseMove());
+        change /= TUPLES.length;
+        for (int t = 0; t < TUPLES.length; t += 1) {
+            values[TABLE[t]][index[t]] += change;
+        }
+    }
+
+    /** Return value tables, one for each of TABLE_SIZES, all 0. */
+    static float[][] newValues() {
+        float[][] values = new float[TABLE_SIZES.length][];
+        for (int k = 0; k < values.length; k += 1) {
+            values[k] = new float[TABLE_SIZES[k]];
+        }
+        return values;
+    }
+
+    /** Write VALUES, a value table for each of TABLE_SIZES, to the file
+     *  named FILENAME in the form read by NTupleEvaluator. */
+    static void write(String fileName, float[][] values) throws IOException {
+        try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(
+                 new FileOutputStream(fileName)))) {
+            out.writeLong(MAGIC);
+            for (float[] table : values) {
+                for (float value : table) {
+                    int rounded = Math.round(value);
+                    out.writeShort(Math.max(Short.MIN_VALUE,
+                                            Math.min(Short.MAX_VALUE,
+                                                     rounded)));
+                }
+            }
+        }
+    }
+
+    /** An evaluator that gives every tuple value 0, and so values
+     *  positions as MaterialEvaluator does. */
+    NTupleEvaluator() {
+        _values = new int[TABLE_SIZES.length][];
+        for (int k = 0; k < _values.length; k += 1) {
+            _values[k] = new int[TABLE_SIZES[k]];
+        }
+    }
+
+    /** An evaluator using the values in the file named FILENAME. */
+    NTupleEvaluator(String fileName) {
+        this();
+        try (DataInputStream in =
+             new DataInputStream(new BufferedInputStream(
+                 new FileInputStream(fileName)))) {
+            if (in.readLong() != MAGIC) {
+                throw error("%s is not an n-tuple value file", fileName);
+            }
+            for (int[] table : _values) {
+                for (int i = 0; i < table.length; i += 1) {
+                    table[i] = in.readShort();
+                }
+            }
+            if (in.read() != -1) {
+                throw error("%s is not an n-tuple value file", fileName);
+            }
+        } catch (IOException excp) {
+            throw error("could not read %s", fileName);
+        }
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        PieceColor me = board.whoseMove();
+        return PIECE * (board.numPieces(me) - board.numPieces(me.opposite()))
+            + state(board).sum(me);
+    }
+
+    @Override
+    public boolean usesVacated() {
+        return false;
+    }
+
+    /** Return the calling thread's State, brought up to date with
+     *  BOARD. */
+    State state(Board board) {
+        State state = _states.get();
+        if (state == null) {
+            state = new State(this, board);
+            _states.set(state);
+        } else {
+            state.update(board);
+        }
+        return state;
+    }
+
+    /** The numbers of the tuples of a position, and the totals of their
+     *  values, for each side to move. */
+    static class State {
+
+        /** The state of BOARD, valued by EVALUATOR, computed from
+         *  scratch. */
+        State(NTupleEvaluator evaluator, Board board) {
+            _values = evaluator._values;
+            _red = board.mask(RED);
+            _blue = board.mask(BLUE);
+            _index = new int[2][TUPLES.length];
+            _sum = new int[2];
+            for (int side = 0; side < 2; side += 1) {
+                long mine = board.mask(SIDES[side]),
+                    theirs = board.mask(SIDES[side].opposite());
+                for (int t = 0; t < TUPLES.length; t += 1) {
+                    int index = 0;
+                    for (int b : TUPLES[t]) {
+                        index = 3 * index + (int) ((mine >>> b) & 1)
+                            + 2 * (int) ((theirs >>> b) & 1);
+                    }
+                    _index[side][t] = index;
+                    _sum[side] += _values[TABLE[t]][index];
+                }
+            }
+        }
+
+        /** Return the total value of my tuples when WHO is to move. */
+        int sum(PieceColor who) {
+            return _sum[who.ordinal() - RED.ordinal()];
+        }
+
+        /** Return the numbers of my tuples when WHO is to move. */
+        private int[] index(PieceColor who) {
+            return _index[who.ordinal() - RED.ordinal()];
+        }
+
+        /** Change me to be the state of BOARD, changing the digits of
+         *  the squares whose contents differ from those of the position I
+         *  was the state of.  Digits are lowered before any are raised,
+         *  so that none leaves the range 0 .. 2 on the way. */
+        void update(Board board) {
+            long red = board.mask(RED), blue = board.mask(BLUE);
+            long redLost = _red & ~red, blueLost = _blue & ~blue;
+            long toRed = blueLost & red, toBlue = redLost & blue;
+            long redEmptied = redLost & ~toBlue,
+                blueEmptied = blueLost & ~toRed,
+                redFilled = red & ~_red & ~toRed,
+                blueFilled = blue & ~_blue & ~toBlue;
+            if ((redLost | blueLost | redFilled | blueFilled) == 0) {
+                return;
+            }
+            change(redEmptied | toRed, 0, -1);
+            change(blueEmptied, 0, -2);
+            change(redFilled | toBlue, 0, 1);
+            change(blueFilled, 0, 2);
+            change(blueEmptied | toBlue, 1, -1);
+            change(redEmptied, 1, -2);
+            change(blueFilled | toRed, 1, 1);
+            change(redFilled, 1, 2);
+            _red = red;
+            _blue = blue;
+        }
+
+        /** Add DELTA to the digits of the squares in SQUARES in the tuples
+         *  for SIDE to move. */
+        private void change(long squares, int side, int delta) {
+            int[][] values = _values;
+            int[] index = _index[side];
+            int sum = _sum[side];
+            for (; squares != 0; squares &= squares - 1) {
+                int b = Long.numberOfTrailingZeros(squares);
+                int[] tuples = MEMBERS[b], powers = POWERS[b];
+                for (int i = 0; i < tuples.length; i += 1) {
+                    int t = tuples[i];
+                    int[] table = values[TABLE[t]];
+                    sum -= table[index[t]];
+                    index[t] += delta * powers[i];
+                    sum += table[index[t]];
+                }
+            }
+            _sum[side] = sum;
+        }
+
+        /** The value tables of the evaluator whose values I total. */
+        private final int[][] _values;
+        /** The squares holding red and blue pieces in the position I am
+         *  the state of. */
+        private long _red, _blue;
+        /** _index[s][t] is the number of tuple t when SIDES[s] is to
+         *  move. */
+        private final int[][] _index;
+        /** _sum[s] is the total of the values of the tuples when SIDES[s]
+         *  is to move. */
+        private final int[] _sum;
+    }
+
+    /** The players, indexed by their ordinals less that of RED. */
+    private static final PieceColor[] SIDES = { RED, BLUE };
+
+    /** First eight bytes of a value file. */
+    private static final long MAGIC = 0x41544158_4e545550L;
+
+    /** The basic tuples, as {column, row} pairs: four of the 3x3 blocks
+     *  that are not reflections of each other, the two others in the
+     *  middle, an edge, and a corner triangle. */
+    private static final int[][][] BASE_TUPLES = {
+        block(1, 1), block(2, 1), block(3, 1), block(2, 2), block(3, 2),
+        block(3, 3),
+        { {0, 0}, {1, 0}, {2, 0}, {3, 0}, {4, 0}, {5, 0}, {6, 0} },
+        { {0, 0}, {1, 0}, {2, 0}, {3, 0}, {0, 1}, {1, 1}, {2, 1}, {0, 2},
+          {1, 2}, {0, 3} },
+    };
+
+    /** Return the 3x3 block centered at column C and row R, as {column,
+     *  row} pairs. */
+    private static int[][] block(int c, int r) {
+        int[][] result = new int[9][];
+        for (int i = 0; i < 9; i += 1) {
+            result[i] = new int[] { c + i % 3 - 1, r + i / 3 - 1 };
+        }
+        return result;
+    }
+
+    /** TUPLES[t] gives the bit numbers of the squares of tuple t, most
+     *  significant digit first, and TABLE[t] is the index in TABLE_SIZES
+     *  (and of the basic tuple) of its table. */
+    private static final int[][] TUPLES;
+    private static final int[] TABLE;
+
+    /** Number of entries in each table. */
+    private static final int[] TABLE_SIZES = new int[BASE_TUPLES.length];
+
+    /** MEMBERS[b] lists the tuples containing the square with bit number
+     *  b, and POWERS[b] the values of its digit in each of them. */
+    private static final int[][] MEMBERS = new int[SIDE * SIDE][],
+        POWERS = new int[SIDE * SIDE][];
+
+    static {
+        List<int[]> tuples = new ArrayList<>();
+        List<Integer> tables = new ArrayList<>();
+        for (int k = 0; k < BASE_TUPLES.length; k += 1) {
+            int[][] base = BASE_TUPLES[k];
+            TABLE_SIZES[k] = (int) Math.pow(3, base.length);
+            for (int sym = 0; sym < 8; sym += 1) {
+                int[] tuple = new int[base.length];
+                for (int i = 0; i < base.length; i += 1) {
+                    tuple[i] = Board.symmetric(base[i][0], base[i][1], sym);
+                }
+                boolean seen = false;
+                for (int[] other : tuples) {
+                    seen |= Arrays.equals(other, tuple);
+                }
+                if (!seen) {
+                    tuples.add(tuple);
+                    tables.add(k);
+                }
+            }
+        }
+        TUPLES = tuples.toArray(new int[tuples.size()][]);
+        TABLE = new int[TUPLES.length];
+        for (int t = 0; t < TABLE.length; t += 1) {
+            TABLE[t] = tables.get(t);
+        }
+        for (int b = 0; b < SIDE * SIDE; b += 1) {
+            List<int[]> members = new ArrayList<>();
+            for (int t = 0; t < TUPLES.length; t += 1) {
+                int power = 1;
+                for (int i = TUPLES[t].length - 1; i >= 0; i -= 1) {
+                    if (TUPLES[t][i] == b) {
+                        members.add(new int[] { t, power });
+                    }
+                    power *= 3;
+                }
+            }
+            MEMBERS[b] = new int[members.size()];
+            POWERS[b] = new int[members.size()];
+            for (int i = 0; i < members.size(); i += 1) {
+                MEMBERS[b][i] = members.get(i)[0];
+                POWERS[b][i] = members.get(i)[1];
+            }
+        }
+    }
+
+    /** An evaluator all of whose values are 0, used in training only to
+     *  keep track of tuples' numbers. */
+    private static final NTupleEvaluator ZERO = new NTupleEvaluator();
+
+    /** Probability of a random move in training games. */
+    private static final float EXPLORE = 0.1f;
+
+    /** Fraction of the difference between a position's value and its
+     *  target by which training changes the value. */
+    private static final float LEARNING_RATE = 0.1f;
+
+    /** Number of training games between reports. */
+    private static final int REPORT_INTERVAL = 1000;
+
+    /** The value tables, indexed as TABLE_SIZES. */
+    private final int[][] _values;
+
+    /** The State of the position each thread last evaluated, or null if
+     *  it has evaluated none. */
+    private final ThreadLocal<State> _states = new ThreadLocal<>();
+}
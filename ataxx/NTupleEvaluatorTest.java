@@ -0,0 +1,143 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static ataxx.PieceColor.*;
+
+/** Tests of the NTupleEvaluator class.
+ *  @author Tianyu Liu
+ */
+public class NTupleEvaluatorTest {
+
+    /** Return an evaluator with random values, read from a file written
+     *  with a generator seeded with SEED. */
+    private static NTupleEvaluator randomEvaluator(long seed)
+        throws IOException {
+        Random random = new Random(seed);
+        float[][] values = NTupleEvaluator.newValues();
+        for (float[] table : values) {
+            for (int i = 0; i < table.length; i += 1) {
+                table[i] = random.nextInt(201) - 100;
+            }
+        }
+        File file = File.createTempFile("ntuple", ".values");
+        file.deleteOnExit();
+        NTupleEvaluator.write(file.getPath(), values);
+        return new NTupleEvaluator(file.getPath());
+    }
+
+    /** Check that the values EVALUATOR keeps for BOARD are those of
+     *  its tuples counted from scratch. */
+    private static void checkSum(Board board, NTupleEvaluator evaluator) {
+        NTupleEvaluator.State state =
+            new NTupleEvaluator.State(evaluator, board);
+        for (PieceColor who : new PieceColor[] { RED, BLUE }) {
+            assertEquals("incremental value wrong", state.sum(who),
+                         evaluator.state(board).sum(who));
+        }
+    }
+
+    @Test
+    public void testIncremental() throws IOException {
+        NTupleEvaluator evaluator = randomEvaluator(0);
+        Random random = new Random(0);
+        int[] moves = new int[Board.MAX_MOVES];
+        for (int game = 0; game < 20; game += 1) {
+            Board board = new Board();
+            board.setBlock("c3");
+            checkSum(board, evaluator);
+            while (board.getWinner() == null) {
+                int n = board.legalMoves(moves);
+                board.makeSearchMove(moves[random.nextInt(n)]);
+                checkSum(board, evaluator);
+                if (random.nextInt(4) == 0) {
+                    board.undoSearchMove();
+                    checkSum(board, evaluator);
+                    checkSum(new Board(board), evaluator);
+                }
+            }
+        }
+    }
+
+    /** Two players with different evaluators, each searching its own
+     *  copy of the game's board as AI.findMove does, keep separate
+     *  States that follow their own boards, however their evaluations
+     *  interleave. */
+    @Test
+    public void testTwoEvaluators() throws IOException {
+        NTupleEvaluator[] evaluators =
+            { randomEvaluator(2), randomEvaluator(3) };
+        Random random = new Random(2);
+        int[] moves = new int[Board.MAX_MOVES];
+        Board game = new Board();
+        NTupleEvaluator.State[] states = new NTupleEvaluator.State[2];
+        for (int turn = 0; turn < 40 && game.getWinner() == null;
+             turn += 1) {
+            Board[] searches = { new Board(game), new Board(game) };
+            for (int k = 0; k < 20; k += 1) {
+                int p = random.nextInt(2);
+                Board search = searches[p];
+                if (search.getWinner() != null) {
+                    continue;
+                }
+                int n = search.legalMoves(moves);
+                search.makeSearchMove(moves[random.nextInt(n)]);
+                evaluators[p].evaluate(search);
+                checkSum(search, evaluators[p]);
+                if (states[p] == null) {
+                    states[p] = evaluators[p].state(search);
+                }
+                assertSame("state rebuilt", states[p],
+                           evaluators[p].state(search));
+            }
+            int n = game.legalMoves(moves);
+            game.makeSearchMove(moves[random.nextInt(n)]);
+        }
+    }
+
+    @Test
+    public void testSymmetric() throws IOException {
+        NTupleEvaluator evaluator = randomEvaluator(1);
+        Board b1 = new Board(), b2 = new Board();
+        b1.makeMove("a7-b6");
+        b2.makeMove("g1-f2");
+        assertEquals("reflections valued differently",
+                     evaluator.evaluate(b1), evaluator.evaluate(b2));
+    }
+
+    @Test
+    public void testZero() {
+        NTupleEvaluator evaluator = new NTupleEvaluator();
+        Evaluator material = new MaterialEvaluator();
+        Board board = new Board();
+        board.makeMove("a7-b6");
+        board.makeMove("a1-c3");
+        assertEquals(material.evaluate(board), evaluator.evaluate(board));
+    }
+
+    @Test
+    public void testBadFile() throws IOException {
+        File file = File.createTempFile("ntuple", ".values");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[16]);
+        }
+        try {
+            new NTupleEvaluator(file.getPath());
+            fail("bad file accepted");
+        } catch (GameException excp) {
+            /* Expected. */
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static ataxx.Board.SIDE;
+import static ataxx.PieceColor.*;
+import static ataxx.GameException.error;
+
+/** A book of opening moves, read from a file built beforehand by deep
+ *  searches (see main).  The file is a header followed by entries sorted
+ *  by key, each giving a position's key, one of its best moves, and that
+ *  move's value for the player to move.  It is mapped into memory rather
+ *  than read, so that opening even a large book costs little, and only
+ *  the pages that lookups touch are ever read.
+ *
+ *  The eight rotations and reflections of the board give positions that
+ *  are equally good, so the book holds each position only once, in a
+ *  canonical orientation: the one whose key (unlike Board.key(), these
+ *  are computed from the whole position) is least.  Moves are stored
+ *  in that orientation, and turned back when looked up.
+ *  @author Tianyu Liu
+ */
+class OpeningBook {
+
+    /** Build a book from the positions up to ARGS[1] moves from the
+     *  initial position, valuing each move by a search to depth ARGS[2]
+     *  with the evaluator named ARGS[3] (default "material"), whose
+     *  values are read from the file ARGS[4] if it needs one, and write
+     *  it to the file ARGS[0]. */
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 5) {
+            System.err.println("Usage: java ataxx.OpeningBook FILE PLIES "
+                               + "DEPTH [ EVALUATOR [ VALUES ] ]");
+            System.exit(1);
+        }
+        SearchOptions options = new SearchOptions();
+        if (args.length >= 4) {
+            options.setEvaluator(Evaluators.forName(args[3], args.length == 5
+                                                    ? args[4] : null));
+        }
+        long start = System.nanoTime();
+        List<long[]> entries =
+            build(new Board(), Utils.toInt(args[1]), Utils.toInt(args[2]),
+                  options);
+        try {
+            write(args[0], entries);
+        } catch (IOException excp) {
+            System.err.printf("Could not write %s: %s%n", args[0],
+                              excp.getMessage());
+            System.exit(1);
+        }
+        System.out.printf("%d entries in %d msec%n", entries.size(),
+                          (System.nanoTime() - start) / 1000000);
+    }
+
+    /** Return book entries, as {key, move code, value} in canonical
+     *  orientation, for the positions up to PLIES moves from START
+     *  (counting each orientation once), holding each position's best
+     *  moves as found by searching every move to DEPTH with the settings
+     *  in OPTIONS. */
+    static List<long[]> build(Board start, int plies, int depth,
+                              SearchOptions options) {
+        List<long[]> entries = new ArrayList<>();
+        HashSet<Long> seen = new HashSet<>();
+        List<Board> level = new ArrayList<>();
+        level.add(new Board(start));
+        Searcher searcher = new Searcher();
+        TranspositionTable table =
+            new TranspositionTable(Defaults.TABLE_SIZE);
+        EvalCache cache = new EvalCache(Defaults.EVAL_CACHE_SIZE);
+        int[] moves = new int[Board.MAX_MOVES];
+        for (int ply = 0; ply <= plies; ply += 1) {
+            List<Board> next = new ArrayList<>();
+            for (Board board : level) {
+                int sym = symmetry(board);
+                long key = key(board, sym);
+                if (board.getWinner() != null || !seen.add(key)) {
+                    continue;
+                }
+                int n = board.legalMoves(moves);
+                int best = -Searcher.INFTY;
+                int[] scores = new int[n];
+                searcher.start(table, cache, options, Long.MAX_VALUE);
+                for (int i = 0; i < n; i += 1) {
+                    board.makeSearchMove(moves[i]);
+                    scores[i] = -searcher.search(board, depth - 1);
+                    board.undoSearchMove();
+                    best = Math.max(best, scores[i]);
+                }
+                for (int i = 0; i < n; i += 1) {
+                    if (scores[i] == best) {
+                        entries.add(new long[] {
+                            key, transform(moves[i], MAP[sym]), best });
+                    }
+                    if (ply < plies) {
+                        Board child = new Board(board);
+                        child.makeMove(board.toMove(moves[i]));
+                        next.add(child);
+                    }
+                }
+            }
+            level = next;
+        }
+        return entries;
+    }
+
+    /** Write ENTRIES, as produced by build, to the file named FILENAME
+     *  in the form read by OpeningBook. */
+    static void write(String fileName, List<long[]> entries)
+        throws IOException {
+        List<long[]> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, (x, y) -> x[0] != y[0]
+                         ? Long.compare(x[0], y[0])
+                         : Long.compare(y[2], x[2]));
+        try (DataOutputStream out =
+             new DataOutputStream(new BufferedOutputStream(
+                 new FileOutputStream(fileName)))) {
+            out.writeLong(MAGIC);
+            for (long[] entry : sorted) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeInt((int) entry[2]);
+            }
+        }
+    }
+
+    /** The book in the file named FILENAME. */
+    OpeningBook(String fileName) {
+        try (FileChannel channel =
+             FileChannel.open(Paths.get(fileName),
+                              StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || (size - HEADER_SIZE) % ENTRY_SIZE != 0
+                || size > Integer.MAX_VALUE) {
+                throw error("%s is not an opening book", fileName);
+            }
+            _entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException excp) {
+            throw error("could not read %s", fileName);
+        }
+        if (_entries.getLong(0) != MAGIC) {
+            throw error("%s is not an opening book", fileName);
+        }
+        _size = (int) ((_entries.capacity() - HEADER_SIZE) / ENTRY_SIZE);
+    }
+
+    /** Return the number of entries in the book. */
+    int size() {
+        return _size;
+    }
+
+    /** Return the code of a best move for the player to move on BOARD,
+     *  chosen using RANDOM among those of equal value, or NO_MOVE if
+     *  BOARD is not in the book. */
+    int move(Board board, Random random) {
+        int sym = symmetry(board);
+        long key = key(board, sym);
+        int lo = 0, hi = _size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entryKey(mid) < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int n = 0;
+        while (lo + n < _size && entryKey(lo + n) == key
+               && entryValue(lo + n) == entryValue(lo)) {
+            n += 1;
+        }
+        if (n == 0) {
+            return Searcher.NO_MOVE;
+        }
+        return transform(entryMove(lo + random.nextInt(n)), UNMAP[sym]);
+    }
+
+    /** Return the key of entry I. */
+    private long entryKey(int i) {
+        return _entries.getLong(HEADER_SIZE + i * ENTRY_SIZE);
+    }
+
+    /** Return the move code of entry I, in canonical orientation. */
+    private int entryMove(int i) {
+        return _entries.getInt(HEADER_SIZE + i * ENTRY_SIZE + 8);
+    }
+
+    /** Return the value of entry I. */
+    private int entryValue(int i) {
+        return _entries.getInt(HEADER_SIZE + i * ENTRY_SIZE + 12);
+    }
+
+    /** Return the number (an index into MAP) of the symmetry that takes
+     *  BOARD to its canonical orientation. */
+    static int symmetry(Board board) {
+        int best = 0;
+        long bestKey = key(board, 0);
+        for (int sym = 1; sym < MAP.length; sym += 1) {
+            long key = key(board, sym);
+            if (key < bestKey) {
+                best = sym;
+                bestKey = key;
+            }
+        }
+        return best;
+    }
+
+    /** Return the book key of BOARD after applying symmetry SYM. */
+    static long key(Board board, int sym) {
+        int[] map = MAP[sym];
+        long key = mix(transform(board.mask(RED), map) ^ KEY_SEED);
+        key = mix(key ^ transform(board.mask(BLUE), map));
+        key = mix(key ^ transform(board.mask(BLOCKED), map));
+        return mix(key ^ (board.numJumps() << 1)
+                   ^ (board.whoseMove() == RED ? 0 : 1));
+    }
+
+    /** Return MASK, a set of squares, with each square's bit number b
+     *  replaced by MAP[b]. */
+    private static long transform(long mask, int[] map) {
+        long result = 0;
+        for (; mask != 0; mask &= mask - 1) {
+            result |= 1L << map[Long.numberOfTrailingZeros(mask)];
+        }
+        return result;
+    }
+
+    /** Return the move code CODE with each square's bit number b replaced
+     *  by MAP[b]. */
+    private static int transform(int code, int[] map) {
+        if (code == Board.PASS_CODE) {
+            return code;
+        }
+        return Board.moveCode(map[Board.codeFrom(code)],
+                              map[Board.codeTo(code)]);
+    }
+
+    /** Return a hash of X in which every bit of X affects every bit of
+     *  the result (the finalizer of SplitMix64). */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /** First eight bytes of a book file. */
+    private static final long MAGIC = 0x41544158_424f4f4bL;
+
+    /** Sizes in bytes of the header and of each entry. */
+    private static final int HEADER_SIZE = 8, ENTRY_SIZE = 16;
+
+    /** Constant mixed into each book key, so that the empty board does not
+     *  have key 0. */
+    private static final long KEY_SEED = 0x61B_B00CL;
+
+    /** MAP[s][b] is the bit number of the square to which symmetry s of
+     *  the board (as numbered by Board.symmetric) takes the square with
+     *  bit number b.  UNMAP[s] is the inverse of MAP[s]. */
+    private static final int[][] MAP = new int[8][SIDE * SIDE],
+        UNMAP = new int[8][SIDE * SIDE];
+
+    static {
+        for (int s = 0; s < MAP.length; s += 1) {
+            for (int r = 0; r < SIDE; r += 1) {
+                for (int c = 0; c < SIDE; c += 1) {
+                    int b = Board.symmetric(c, r, s);
+                    MAP[s][c + r * SIDE] = b;
+                    UNMAP[s][b] = c + r * SIDE;
+                }
+            }
+        }
+    }
+
+    /** The contents of the book file. */
+    private final MappedByteBuffer _entries;
+
+    /** Number of entries. */
+    private final int _size;
+}
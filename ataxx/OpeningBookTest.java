@@ -0,0 +1,87 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/** Tests of the OpeningBook class.
+ *  @author Tianyu Liu
+ */
+public class OpeningBookTest {
+
+    /** Return MOVE with rows and columns exchanged iff bit 2 of SYM is
+     *  set, then reflected across the middle column iff bit 0 is set and
+     *  across the middle row iff bit 1 is set. */
+    private static String transform(String move, int sym) {
+        char[] s = move.toCharArray();
+        for (int i = 0; i < s.length; i += 3) {
+            if ((sym & 4) != 0) {
+                char c = s[i];
+                s[i] = (char) ('a' + s[i + 1] - '1');
+                s[i + 1] = (char) ('1' + c - 'a');
+            }
+            if ((sym & 1) != 0) {
+                s[i] = (char) ('a' + 'g' - s[i]);
+            }
+            if ((sym & 2) != 0) {
+                s[i + 1] = (char) ('1' + '7' - s[i + 1]);
+            }
+        }
+        return new String(s);
+    }
+
+    /** Symmetries that take Red's initial pieces to themselves. */
+    private static final int[] RED_SYMMETRIES = { 3, 4, 7 };
+
+    @Test
+    public void testSymmetricKeys() {
+        Board b0 = new Board();
+        b0.makeMove("a7-b6");
+        for (int sym : RED_SYMMETRIES) {
+            Board b1 = new Board();
+            b1.makeMove(transform("a7-b6", sym));
+            assertEquals(canonicalKey(b0), canonicalKey(b1));
+        }
+        Board b2 = new Board();
+        b2.makeMove("a7-a6");
+        assertNotEquals(canonicalKey(b0), canonicalKey(b2));
+    }
+
+    /** Return the book key of BOARD in its canonical orientation. */
+    private static long canonicalKey(Board board) {
+        return OpeningBook.key(board, OpeningBook.symmetry(board));
+    }
+
+    @Test
+    public void testReflectedLookup() throws IOException {
+        File file = File.createTempFile("ataxx", ".book");
+        file.deleteOnExit();
+        OpeningBook.write(file.getPath(),
+                          OpeningBook.build(new Board(), 1, 2,
+                                            new SearchOptions()));
+        OpeningBook book = new OpeningBook(file.getPath());
+        assertTrue(book.size() > 0);
+        Board b = new Board();
+        b.makeMove("a7-b6");
+        b.makeMove(b.toMove(book.move(b, new Random(0))));
+        for (int sym : RED_SYMMETRIES) {
+            Board reflected = new Board();
+            reflected.makeMove(transform("a7-b6", sym));
+            int code = book.move(reflected, new Random(0));
+            assertNotEquals(Searcher.NO_MOVE, code);
+            reflected.makeMove(reflected.toMove(code));
+            assertEquals(canonicalKey(b), canonicalKey(reflected));
+        }
+        b.makeMove("g1-g3");
+        assertEquals(Searcher.NO_MOVE, book.move(b, new Random(0)));
+    }
+
+}
@@ -0,0 +1,90 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.Board.MAX_MOVES;
+
+/** Counts of the positions reachable in a given number of moves
+ *  ("perft"), used to check Board's move generation and make/undo against
+ *  known counts and to measure their speed.  Moves are as produced by
+ *  Board.legalMoves, so all extends to one square count as a single move.
+ *  A forced pass counts as a move, and a position in which the game is
+ *  over counts as a leaf whatever depth remains.
+ *  @author Tianyu Liu
+ */
+class Perft {
+
+    /** Run perft from the initial position.  ARGS[0] is the depth, and
+     *  an optional ARGS[1] of "divide" requests counts for each first
+     *  move. */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2
+            || (args.length == 2 && !args[1].equals("divide"))) {
+            System.err.println("Usage: java ataxx.Perft DEPTH [ divide ]");
+            System.exit(1);
+        }
+        report(new Board(), Utils.toInt(args[0]), args.length == 2,
+               new TextReporter());
+    }
+
+    /** Return the number of leaf positions DEPTH moves from BOARD, which
+     *  is unchanged on return. */
+    static long perft(Board board, int depth) {
+        return new Perft(depth).count(board, depth);
+    }
+
+    /** Report the perft count for DEPTH from BOARD to REPORTER, with the
+     *  time taken and nodes per second, preceded by the count for each
+     *  first move if DIVIDE. BOARD is unchanged on return. */
+    static void report(Board board, int depth, boolean divide,
+                       Reporter reporter) {
+        Perft counter = new Perft(depth);
+        long start = System.nanoTime();
+        long total;
+        if (!divide || depth == 0 || board.getWinner() != null) {
+            total = counter.count(board, depth);
+        } else {
+            total = 0;
+            int[] moves = counter._moves[depth];
+            int n = board.legalMoves(moves);
+            for (int i = 0; i < n; i += 1) {
+                Move move = board.toMove(moves[i]);
+                board.makeSearchMove(moves[i]);
+                long sub = counter.count(board, depth - 1);
+                board.undoSearchMove();
+                reporter.msg("%s: %d", move, sub);
+                total += sub;
+            }
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        reporter.msg("perft %d: %d nodes in %d msec (%d nodes/sec)",
+                     depth, total, nanos / 1000000,
+                     (long) (total * 1e9 / nanos));
+    }
+
+    /** A counter for searches of up to DEPTH moves. */
+    private Perft(int depth) {
+        _moves = new int[depth + 1][MAX_MOVES];
+    }
+
+    /** Return the number of leaf positions DEPTH moves from BOARD. */
+    private long count(Board board, int depth) {
+        if (depth == 0 || board.getWinner() != null) {
+            return 1;
+        }
+        int[] moves = _moves[depth];
+        int n = board.legalMoves(moves);
+        long total = 0;
+        for (int i = 0; i < n; i += 1) {
+            board.makeSearchMove(moves[i]);
+            total += count(board, depth - 1);
+            board.undoSearchMove();
+        }
+        return total;
+    }
+
+    /** Buffers for the moves generated at each remaining depth. */
+    private final int[][] _moves;
+}
@@ -40,6 +40,16 @@ abstract class Player {
      *  board.whoseMove() == myColor() and that the game is not over. */
     abstract String getMove();
 
+    /** Stop any thinking I am doing in the background, because the game
+     *  has changed or ended.  By default, does nothing. */
+    void stopThinking() {
+    }
+
+    /** Forget what I have learnt from the positions of earlier games,
+     *  because a new game is starting.  By default, does nothing. */
+    void forget() {
+    }
+
     /** The game I am playing in. */
     private final Game _game;
     /** The color of my pieces. */
@@ -0,0 +1,197 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.SplittableRandom;
+
+import static ataxx.Board.*;
+import static ataxx.PieceColor.*;
+
+/** Random games played out to the end from a position, as fast as
+ *  possible, for Monte Carlo search and for testing.  A Playout copies
+ *  the position into a few primitive fields (the sets of red, blue, and
+ *  empty squares, whose move it is, and the number of consecutive jumps)
+ *  and plays on those, following Board's rules, with none of Board's
+ *  record keeping: no undo journal, keys, or notification.  Playing a
+ *  game allocates nothing.
+ *
+ *  Moves are as produced by Board.legalMoves (one extend to each square
+ *  that can be reached by one, and all jumps), chosen either uniformly,
+ *  or in proportion to one more than the number of pieces each gains.
+ *  @author Tianyu Liu
+ */
+class Playout {
+
+    /** Report the number of playouts from the initial position per
+     *  second on one core, playing ARGS[0] games (default 100000) with
+     *  each way of choosing moves. */
+    public static void main(String[] args) {
+        if (args.length > 1) {
+            System.err.println("Usage: java ataxx.Playout [ GAMES ]");
+            System.exit(1);
+        }
+        int games = args.length == 0 ? 100000 : Utils.toInt(args[0]);
+        Board board = new Board();
+        for (boolean weighted : new boolean[] { false, true }) {
+            Playout playout = new Playout(0, weighted);
+            for (int i = 0; i < games / 10; i += 1) {
+                playout.play(board);
+            }
+            int[] wins = new int[PieceColor.values().length];
+            long moves = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < games; i += 1) {
+                wins[playout.play(board).ordinal()] += 1;
+                moves += playout.moves();
+            }
+            long nanos = Math.max(1, System.nanoTime() - start);
+            System.out.printf("%-8s %9d playouts/sec %11d moves/sec  "
+                              + "%5.1f moves/game  red %d blue %d "
+                              + "draw %d%n",
+                              weighted ? "weighted" : "uniform",
+                              (long) (games * 1e9 / nanos),
+                              (long) (moves * 1e9 / nanos),
+                              (double) moves / games, wins[RED.ordinal()],
+                              wins[BLUE.ordinal()], wins[EMPTY.ordinal()]);
+        }
+    }
+
+    /** A source of playouts whose moves are chosen with a generator
+     *  seeded with SEED, in proportion to one more than the pieces they
+     *  gain if WEIGHTED, and otherwise uniformly. */
+    Playout(long seed, boolean weighted) {
+        _random = new SplittableRandom(seed);
+        _weighted = weighted;
+    }
+
+    /** Play a game out from BOARD, which is unchanged, and return the
+     *  winner: RED, BLUE, or EMPTY for a draw. */
+    PieceColor play(Board board) {
+        long mine = board.mask(board.whoseMove()),
+            theirs = board.mask(board.whoseMove().opposite()),
+            empty = board.mask(EMPTY);
+        boolean redToMove = board.whoseMove() == RED;
+        int jumps = board.numJumps();
+        int moves = 0;
+        PieceColor winner = board.getWinner();
+        while (winner == null) {
+            if ((grow(grow(mine)) & empty) != 0) {
+                int code = choose(mine, theirs, empty);
+                int from = codeFrom(code), to = codeTo(code);
+                long flips = ADJACENT[to] & theirs;
+                mine |= flips | (1L << to);
+                theirs ^= flips;
+                empty &= ~(1L << to);
+                if (from == to) {
+                    jumps = 0;
+                } else {
+                    mine ^= 1L << from;
+                    empty |= 1L << from;
+                    jumps += 1;
+                }
+            }
+            moves += 1;
+            long mover = mine;
+            mine = theirs;
+            theirs = mover;
+            redToMove = !redToMove;
+            winner = winner(mine, theirs, empty, jumps, redToMove);
+        }
+        _moves = moves;
+        return winner;
+    }
+
+    /** Return the number of moves, including passes, in the last game
+     *  played. */
+    int moves() {
+        return _moves;
+    }
+
+    /** Return the code of a move, other than a pass, for the player with
+     *  pieces MINE, whose opponent has THEIRS, when EMPTY is empty.
+     *  Rather than listing the moves, finds how many there are (or their
+     *  total weight) to each empty square, chooses a number below the
+     *  total, and counts through the squares again to find its move. */
+    int choose(long mine, long theirs, long empty) {
+        long targets = grow(grow(mine)) & empty, adjacent = grow(mine);
+        int total = 0;
+        for (long t = targets; t != 0; t &= t - 1) {
+            total += weight(Long.numberOfTrailingZeros(t), mine, theirs,
+                            adjacent);
+        }
+        int r = _random.nextInt(total);
+        for (long t = targets; true; t &= t - 1) {
+            int to = Long.numberOfTrailingZeros(t);
+            int w = weight(to, mine, theirs, adjacent);
+            if (r >= w) {
+                r -= w;
+                continue;
+            }
+            int each = _weighted ? Long.bitCount(ADJACENT[to] & theirs) + 1
+                : 1;
+            if ((adjacent & (1L << to)) != 0) {
+                r -= _weighted ? each + 1 : 1;
+                if (r < 0) {
+                    return moveCode(to, to);
+                }
+            }
+            long from = JUMPS[to] & mine;
+            for (r /= each; r > 0; r -= 1) {
+                from &= from - 1;
+            }
+            return moveCode(Long.numberOfTrailingZeros(from), to);
+        }
+    }
+
+    /** Return the total weight of the moves to the square with bit
+     *  number TO for the player with pieces MINE, whose opponent has
+     *  THEIRS, where ADJACENT is the set of squares reached by extends.
+     *  Each move weighs 1 or, if _weighted, one more than the pieces it
+     *  gains. */
+    private int weight(int to, long mine, long theirs, long adjacent) {
+        int jumps = Long.bitCount(JUMPS[to] & mine);
+        boolean extend = (adjacent & (1L << to)) != 0;
+        if (!_weighted) {
+            return extend ? jumps + 1 : jumps;
+        }
+        int each = Long.bitCount(ADJACENT[to] & theirs) + 1;
+        return extend ? (jumps + 1) * each + 1 : jumps * each;
+    }
+
+    /** Return the winner (as for Board.getWinner) when the player to
+     *  move, who is RED iff REDTOMOVE, has pieces MINE, the other player
+     *  has THEIRS, EMPTY is empty, and there have been JUMPS consecutive
+     *  jumps. */
+    private static PieceColor winner(long mine, long theirs, long empty,
+                                     int jumps, boolean redToMove) {
+        int diff;
+        if (mine == 0) {
+            diff = -1;
+        } else if (theirs == 0) {
+            diff = 1;
+        } else if (jumps >= JUMP_LIMIT
+                   || (grow(grow(mine | theirs)) & empty) == 0) {
+            diff = Long.bitCount(mine) - Long.bitCount(theirs);
+        } else {
+            return null;
+        }
+        if (diff == 0) {
+            return EMPTY;
+        } else if (diff > 0 == redToMove) {
+            return RED;
+        } else {
+            return BLUE;
+        }
+    }
+
+    /** The generator that chooses moves. */
+    private final SplittableRandom _random;
+
+    /** True iff moves are chosen in proportion to their gains. */
+    private final boolean _weighted;
+
+    /** Number of moves in the last game. */
+    private int _moves;
+}
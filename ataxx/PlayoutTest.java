@@ -0,0 +1,89 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static ataxx.PieceColor.*;
+
+/** Tests of the Playout class.
+ *  @author Tianyu Liu
+ */
+public class PlayoutTest {
+
+    /** Check that PLAYOUT chooses only legal moves on BOARD, and (if it
+     *  chooses uniformly) all of them. */
+    private static void checkChoices(Playout playout, Board board,
+                                     boolean all) {
+        int[] moves = new int[Board.MAX_MOVES];
+        int n = board.legalMoves(moves);
+        HashSet<Integer> legal = new HashSet<>(), chosen = new HashSet<>();
+        for (int i = 0; i < n; i += 1) {
+            legal.add(moves[i]);
+        }
+        long mine = board.mask(board.whoseMove()),
+            theirs = board.mask(board.whoseMove().opposite());
+        for (int i = 0; i < 50 * n; i += 1) {
+            int code = playout.choose(mine, theirs, board.mask(EMPTY));
+            assertTrue("illegal move chosen", legal.contains(code));
+            chosen.add(code);
+        }
+        if (all) {
+            assertEquals("some moves never chosen", legal, chosen);
+        }
+    }
+
+    @Test
+    public void testChoices() {
+        Random random = new Random(0);
+        int[] moves = new int[Board.MAX_MOVES];
+        for (boolean weighted : new boolean[] { false, true }) {
+            Playout playout = new Playout(0, weighted);
+            Board board = new Board();
+            board.setBlock("c3");
+            while (board.getWinner() == null) {
+                if (board.canMove(board.whoseMove())) {
+                    checkChoices(playout, board, !weighted);
+                }
+                int n = board.legalMoves(moves);
+                board.makeSearchMove(moves[random.nextInt(n)]);
+            }
+        }
+    }
+
+    @Test
+    public void testPlay() {
+        Board board = new Board();
+        board.makeMove("a7-b6");
+        Board copy = new Board(board);
+        Playout p1 = new Playout(1, true), p2 = new Playout(1, true);
+        for (int i = 0; i < 100; i += 1) {
+            PieceColor winner = p1.play(board);
+            assertNotNull(winner);
+            assertTrue(p1.moves() > 0);
+            assertEquals("not repeatable", winner, p2.play(board));
+            assertEquals(p1.moves(), p2.moves());
+        }
+        assertEquals("board changed", copy, board);
+    }
+
+    @Test
+    public void testFinishedGame() {
+        Board board = new Board();
+        int[] moves = new int[Board.MAX_MOVES];
+        while (board.getWinner() == null) {
+            board.legalMoves(moves);
+            board.makeSearchMove(moves[0]);
+        }
+        Playout playout = new Playout(0, false);
+        assertEquals(board.getWinner(), playout.play(board));
+        assertEquals(0, playout.moves());
+    }
+
+}
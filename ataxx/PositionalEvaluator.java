@@ -0,0 +1,68 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.PieceColor.*;
+import static ataxx.Board.grow;
+import static ataxx.Board.neighbors;
+
+/** An Evaluator that adds to the piece count terms for how safe and
+ *  how free each side's pieces are:
+ *  <ul>
+ *  <li> mobility: the empty squares a side can move to;
+ *  <li> exposure: a side's pieces next to empty squares the opponent can
+ *       reach, any of which the opponent might capture next move;
+ *  <li> holes: empty squares with no empty neighbor, next to a side's
+ *       pieces and reachable by the opponent, which typically let the
+ *       opponent capture several pieces at once;
+ *  <li> vacated squares: squares a side has emptied by jumping and left
+ *       empty, next to its own pieces and reachable by the opponent.
+ *  </ul>
+ *  Every term comes from Board state that is kept up to date
+ *  incrementally as moves are made and undone (the piece masks, the
+ *  mobilities and the vacated squares), combined with a fixed number of
+ *  bit operations, so an evaluation costs the same however full the
+ *  board is.
+ *  @author Tianyu Liu
+ */
+class PositionalEvaluator implements Evaluator {
+
+    /** Weights of the terms, in 1/PIECE pieces per square. */
+    private static final int MOBILITY_WEIGHT = 1, EXPOSURE_WEIGHT = 1,
+        HOLE_WEIGHT = 4, VACATED_WEIGHT = 2;
+
+    @Override
+    public int evaluate(Board board) {
+        PieceColor me = board.whoseMove(), you = me.opposite();
+        long empty = board.mask(EMPTY);
+        long isolated = empty & ~neighbors(empty);
+        long vacated = board.vacated();
+        return PIECE * (board.numPieces(me) - board.numPieces(you))
+            + MOBILITY_WEIGHT * (board.mobility(me) - board.mobility(you))
+            - risk(board.mask(me), board.mask(you), empty, isolated,
+                   vacated)
+            + risk(board.mask(you), board.mask(me), empty, isolated,
+                   vacated);
+    }
+
+    @Override
+    public boolean usesVacated() {
+        return true;
+    }
+
+    /** Return the weighted exposure, hole and vacated-square terms for
+     *  the side with pieces MINE against the side with pieces THEIRS,
+     *  where EMPTY, ISOLATED and VACATED are the empty squares, those
+     *  with no empty neighbor, and those vacated by jumps. */
+    private static int risk(long mine, long theirs, long empty,
+                            long isolated, long vacated) {
+        long reachable = grow(grow(theirs)) & empty;
+        long next = neighbors(mine);
+        return EXPOSURE_WEIGHT * Long.bitCount(mine & neighbors(reachable))
+            + HOLE_WEIGHT * Long.bitCount(isolated & reachable & next)
+            + VACATED_WEIGHT * Long.bitCount(vacated & reachable & next);
+    }
+
+}
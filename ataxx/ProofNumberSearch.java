@@ -0,0 +1,354 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Arrays;
+
+import static ataxx.PieceColor.*;
+
+/** A depth-first proof-number search ("df-pn"), which proves or
+ *  disproves that the player to move can force a given outcome, without
+ *  any static evaluation.  Each position has a proof number, the
+ *  least number of unexplored positions that would all have to go the
+ *  attacker's way for the goal to be proven, and a disproof number, the
+ *  same for the defender.  The search always expands a most-proving
+ *  position (the one reached by following least proof numbers where the
+ *  attacker moves and least disproof numbers where the defender moves),
+ *  but does so depth-first, staying below a position until its numbers
+ *  pass thresholds given by its siblings, and keeping the numbers of
+ *  positions it leaves in a table.
+ *
+ *  So that expensive results survive, the table is bounded, and divided
+ *  into pairs of entries: a position goes in the entry of its pair that
+ *  holds it already, or else the one whose position took less work to
+ *  find.  Positions that drop out are simply searched again.  Board.key()
+ *  includes the number of consecutive jumps, and the total number of
+ *  pieces only increases, so no position can repeat in a game.
+ *  @author Tianyu Liu
+ */
+class ProofNumberSearch {
+
+    /** Outcomes of prove. */
+    static final int PROVEN = 0, DISPROVEN = 1, UNKNOWN = 2;
+
+    /** Report to REPORTER whether the player to move on BOARD wins,
+     *  draws, or loses with best play, with a move that achieves a win
+     *  or draw, visiting at most MAXNODES positions with a table of
+     *  MEGABYTES megabytes.  Gives the progress made about once a
+     *  second.  BOARD is unchanged on return. */
+    static void report(Board board, long maxNodes, int megabytes,
+                       Reporter reporter) {
+        PieceColor player = board.whoseMove();
+        ProofNumberSearch search = new ProofNumberSearch(megabytes);
+        search._reporter = reporter;
+        long start = System.nanoTime();
+        int win = search.prove(board, false, maxNodes);
+        long nodes = search.nodes();
+        int draw = UNKNOWN;
+        if (win == PROVEN) {
+            reporter.msg("%s wins with %s.", player,
+                         board.toMove(search.provingMove()));
+        } else if (win == DISPROVEN) {
+            search.clear();
+            draw = search.prove(board, true, maxNodes - nodes);
+            nodes += search.nodes();
+            if (draw == PROVEN) {
+                reporter.msg("%s draws with %s.", player,
+                             board.toMove(search.provingMove()));
+            } else if (draw == DISPROVEN) {
+                reporter.msg("%s loses.", player);
+            } else {
+                reporter.msg("%s cannot win; no draw or loss proven.",
+                             player);
+            }
+        } else {
+            reporter.msg("No result proven.");
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        reporter.msg("solve: %d nodes in %d msec (%d nodes/sec)",
+                     nodes, nanos / 1000000, (long) (nodes * 1e9 / nanos));
+    }
+
+    /** A search using a table of MEGABYTES megabytes (rounded down to a
+     *  power-of-two number of entries). */
+    ProofNumberSearch(int megabytes) {
+        long entries = ((long) megabytes << 20) / ENTRY_SIZE;
+        int size = Integer.highestOneBit(
+            (int) Math.max(2, Math.min(entries, 1 << 30)));
+        _keys = new long[size];
+        _numbers = new long[size];
+        _work = new long[size];
+        _mask = size - 1;
+    }
+
+    /** Forget all positions searched. */
+    void clear() {
+        Arrays.fill(_keys, 0);
+        Arrays.fill(_numbers, 0);
+        Arrays.fill(_work, 0);
+    }
+
+    /** Search BOARD, on which the game must not be over, to prove that
+     *  the player to move can win, or at least draw if DRAWS, visiting at
+     *  most MAXNODES positions.  Return PROVEN, DISPROVEN, or (if the
+     *  limit is reached first) UNKNOWN.  Positions searched before with
+     *  a different goal must first be cleared.  BOARD is unchanged on
+     *  return. */
+    int prove(Board board, boolean draws, long maxNodes) {
+        assert board.getWinner() == null;
+        _attacker = board.whoseMove();
+        _draws = draws;
+        _maxNodes = maxNodes;
+        _nodes = 0;
+        _aborted = false;
+        _provingMove = Searcher.NO_MOVE;
+        _start = System.nanoTime();
+        _nextReport = _start + REPORT_INTERVAL;
+        search(board, 0, INFINITY, INFINITY);
+        if (_proof == 0) {
+            return PROVEN;
+        } else if (_disproof == 0) {
+            return DISPROVEN;
+        } else {
+            return UNKNOWN;
+        }
+    }
+
+    /** Return the code of a move that achieves the goal of the last
+     *  prove, if it returned PROVEN. */
+    int provingMove() {
+        return _provingMove;
+    }
+
+    /** Return the number of positions visited by the last prove. */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Search BOARD, reached after PLY moves, until its proof number
+     *  reaches PROOFLIMIT, its disproof number reaches DISPROOFLIMIT, or
+     *  the node limit is reached, and set _proof and _disproof to its
+     *  numbers.  At ply 0, sets _provingMove. */
+    private void search(Board board, int ply, int proofLimit,
+                        int disproofLimit) {
+        long nodes0 = _nodes;
+        _nodes += 1;
+        if ((_nodes & CLOCK_CHECK_MASK) == 0) {
+            checkProgress();
+        }
+        if (_nodes >= _maxNodes) {
+            _aborted = true;
+        }
+        boolean attacking = board.whoseMove() == _attacker;
+        int[] moves = moves(ply);
+        int[] proofs = _proofs[ply], disproofs = _disproofs[ply];
+        int n = board.legalMoves(moves);
+        for (int i = 0; i < n; i += 1) {
+            board.makeSearchMove(moves[i]);
+            numbers(board);
+            board.undoSearchMove();
+            proofs[i] = _proof;
+            disproofs[i] = _disproof;
+        }
+        int proof, disproof;
+        while (true) {
+            int best = 0;
+            int second = INFINITY;
+            long proofSum = 0, disproofSum = 0;
+            int[] mins = attacking ? proofs : disproofs;
+            for (int i = 0; i < n; i += 1) {
+                proofSum += proofs[i];
+                disproofSum += disproofs[i];
+                if (mins[i] < mins[best]) {
+                    second = mins[best];
+                    best = i;
+                } else if (i != best && mins[i] < second) {
+                    second = mins[i];
+                }
+            }
+            if (attacking) {
+                proof = proofs[best];
+                disproof = (int) Math.min(disproofSum, MAX_NUMBER);
+            } else {
+                proof = (int) Math.min(proofSum, MAX_NUMBER);
+                disproof = disproofs[best];
+            }
+            if (proof == 0) {
+                disproof = INFINITY;
+            } else if (disproof == 0) {
+                proof = INFINITY;
+            }
+            if (ply == 0) {
+                _provingMove = moves[best];
+                _rootProof = proof;
+                _rootDisproof = disproof;
+            }
+            if (proof >= proofLimit || disproof >= disproofLimit
+                || _aborted) {
+                break;
+            }
+            int childProofLimit, childDisproofLimit;
+            if (attacking) {
+                childProofLimit = Math.min(proofLimit, widen(second));
+                childDisproofLimit =
+                    limit((long) disproofLimit - disproof + disproofs[best]);
+            } else {
+                childProofLimit =
+                    limit((long) proofLimit - proof + proofs[best]);
+                childDisproofLimit = Math.min(disproofLimit, widen(second));
+            }
+            board.makeSearchMove(moves[best]);
+            search(board, ply + 1, childProofLimit, childDisproofLimit);
+            board.undoSearchMove();
+            proofs[best] = _proof;
+            disproofs[best] = _disproof;
+        }
+        store(board.key(), proof, disproof, _nodes - nodes0);
+        _proof = proof;
+        _disproof = disproof;
+    }
+
+    /** Set _proof and _disproof to the numbers of BOARD: final if the
+     *  game is over, and otherwise those in the table, or 1 if it is not
+     *  there. */
+    private void numbers(Board board) {
+        PieceColor winner = board.getWinner();
+        if (winner != null) {
+            boolean won = winner == _attacker || _draws && winner == EMPTY;
+            _proof = won ? 0 : INFINITY;
+            _disproof = won ? INFINITY : 0;
+            return;
+        }
+        long key = board.key();
+        int i = (int) key & _mask;
+        if (_keys[i] != key) {
+            i ^= 1;
+        }
+        if (_keys[i] == key && _work[i] != 0) {
+            _proof = (int) (_numbers[i] >>> 32);
+            _disproof = (int) _numbers[i];
+        } else {
+            _proof = _disproof = 1;
+        }
+    }
+
+    /** Record that the position with key KEY has numbers PROOF and
+     *  DISPROOF, found by visiting WORK positions, unless both entries
+     *  that it could use hold other positions that took more work. */
+    private void store(long key, int proof, int disproof, long work) {
+        int i = (int) key & _mask;
+        if (_keys[i] != key
+            && (_keys[i ^ 1] == key || _work[i ^ 1] < _work[i])) {
+            i ^= 1;
+        }
+        if (_keys[i] == key) {
+            work += _work[i];
+        }
+        _keys[i] = key;
+        _numbers[i] = ((long) proof << 32) | disproof;
+        _work[i] = work;
+    }
+
+    /** Return the threshold for a child whose best sibling has number
+     *  SECOND.  Allowing a quarter more than SECOND (rather than just 1
+     *  more) keeps the search from switching back and forth between
+     *  siblings with nearly equal numbers. */
+    private static int widen(int second) {
+        return second + second / 4 + 1;
+    }
+
+    /** Return LIMIT as a threshold, no greater than INFINITY. */
+    private static int limit(long limit) {
+        return (int) Math.min(limit, INFINITY);
+    }
+
+    /** Report the current root numbers and speed if REPORT_INTERVAL has
+     *  passed since the last report. */
+    private void checkProgress() {
+        long now = System.nanoTime();
+        if (_reporter == null || now < _nextReport) {
+            return;
+        }
+        _nextReport = now + REPORT_INTERVAL;
+        long nanos = Math.max(1, now - _start);
+        _reporter.msg("[solve: proof %d, disproof %d after %d nodes "
+                      + "(%d nodes/sec)]", _rootProof, _rootDisproof,
+                      _nodes, (long) (_nodes * 1e9 / nanos));
+    }
+
+    /** Return the move buffer for ply PLY, allocating more buffers if
+     *  needed. */
+    private int[] moves(int ply) {
+        if (ply == _moves.length) {
+            _moves = Arrays.copyOf(_moves, 2 * ply);
+            _proofs = Arrays.copyOf(_proofs, 2 * ply);
+            _disproofs = Arrays.copyOf(_disproofs, 2 * ply);
+        }
+        if (_moves[ply] == null) {
+            _moves[ply] = new int[Board.MAX_MOVES];
+            _proofs[ply] = new int[Board.MAX_MOVES];
+            _disproofs[ply] = new int[Board.MAX_MOVES];
+        }
+        return _moves[ply];
+    }
+
+    /** The proof or disproof number of a position whose goal is
+     *  disproven or proven, respectively. */
+    private static final int INFINITY = 1 << 30;
+
+    /** The largest proof or disproof number of a position not yet
+     *  proven or disproven. */
+    private static final int MAX_NUMBER = INFINITY - 1;
+
+    /** Bytes occupied by one table entry. */
+    private static final int ENTRY_SIZE = 24;
+
+    /** Number of nodes between checks of the clock (less 1; a power of
+     *  2 less 1). */
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    /** Nanoseconds between reports of progress. */
+    private static final long REPORT_INTERVAL = 1000000000L;
+
+    /** Keys of the positions in the table, their proof numbers (high
+     *  32 bits) and disproof numbers (low 32 bits), and the numbers of
+     *  positions visited to find them (0 for an empty entry). */
+    private final long[] _keys, _numbers, _work;
+
+    /** Mask giving the index in the table of a key. */
+    private final int _mask;
+
+    /** Where progress is reported, or null. */
+    private Reporter _reporter;
+
+    /** The player trying to prove the goal. */
+    private PieceColor _attacker;
+
+    /** True iff the goal includes draws. */
+    private boolean _draws;
+
+    /** Node limit of the current search, and nodes visited so far. */
+    private long _maxNodes, _nodes;
+
+    /** True iff the node limit has been reached. */
+    private boolean _aborted;
+
+    /** Numbers of the last position searched or looked up. */
+    private int _proof, _disproof;
+
+    /** The current most-proving move at the root, and the root's
+     *  numbers when last computed. */
+    private int _provingMove, _rootProof, _rootDisproof;
+
+    /** Values of System.nanoTime() when the current search started and
+     *  when progress is next reported. */
+    private long _start, _nextReport;
+
+    /** Move buffers, and the numbers of the positions each move
+     *  reaches, indexed by ply. */
+    private int[][] _moves = new int[Searcher.MAX_SEARCH_DEPTH][],
+        _proofs = new int[Searcher.MAX_SEARCH_DEPTH][],
+        _disproofs = new int[Searcher.MAX_SEARCH_DEPTH][];
+}
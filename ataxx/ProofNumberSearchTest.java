@@ -0,0 +1,71 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static ataxx.ProofNumberSearch.*;
+
+/** Tests of the ProofNumberSearch class.
+ *  @author Tianyu Liu
+ */
+public class ProofNumberSearchTest {
+
+    /** Return the outcome (1, 0, or -1 for a win, draw, or loss for the
+     *  player to move) of BOARD found by SEARCH, and check that the
+     *  proving move, if any, achieves it according to an EndgameSolver. */
+    private static int outcome(ProofNumberSearch search, Board board) {
+        search.clear();
+        int result = search.prove(board, false, NODES);
+        int outcome = 1;
+        if (result == DISPROVEN) {
+            search.clear();
+            result = search.prove(board, true, NODES);
+            outcome = result == PROVEN ? 0 : -1;
+        }
+        assertNotEquals("no result", UNKNOWN, result);
+        if (result == PROVEN) {
+            Board next = new Board(board);
+            next.makeSearchMove(search.provingMove());
+            assertTrue("proving move does not achieve the outcome",
+                       next.getWinner() != null
+                       || -solved(next) >= outcome);
+        }
+        return outcome;
+    }
+
+    /** Return the exact final margin of BOARD for the player to move. */
+    private static int solved(Board board) {
+        EndgameSolver solver = new EndgameSolver(1);
+        assertTrue("position not solved",
+                   solver.solve(board, Long.MAX_VALUE));
+        return solver.lower();
+    }
+
+    @Test
+    public void testAgreesWithSolver() {
+        Random random = new Random(0);
+        ProofNumberSearch search = new ProofNumberSearch(1);
+        for (int i = 0; i < 10; i += 1) {
+            Board board = EndgameSolver.greedyGame(1 + i % 2, random);
+            assertEquals(Integer.signum(solved(board)),
+                         outcome(search, board));
+        }
+    }
+
+    @Test
+    public void testNodeLimit() {
+        ProofNumberSearch search = new ProofNumberSearch(1);
+        assertEquals(UNKNOWN, search.prove(new Board(), false, 1000));
+        assertTrue(search.nodes() <= 1000);
+    }
+
+    /** Node limit for the searches in these tests. */
+    private static final long NODES = 1000000;
+
+}
@@ -0,0 +1,128 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.GameException.error;
+
+/** Settings for an AI's search: the Evaluator it uses, the selective
+ *  parts of the search, which trade accuracy for speed, and when to
+ *  solve the endgame instead (see EndgameSolver).  Each of the latter
+ *  has a name by which the "option" command sets it:
+ *  <ul>
+ *  <li> lmr: moves at this position or later in the order searched
+ *       (counting from 0) are reduced if quiet; 0 turns reductions
+ *       off.
+ *  <li> lmrdepth: reduce only at nodes with at least this much depth
+ *       left.
+ *  <li> lmrplies: the number of plies by which to reduce.
+ *  <li> futility: at nodes near the leaves, skip moves that leave the
+ *       player to move at least this many pieces per ply of remaining
+ *       depth short of the best value already assured; 0 turns
+ *       futility pruning off.
+ *  <li> futilitydepth: prune only at nodes with at most this much depth
+ *       left.
+ *  <li> endgame: try to solve positions with at most this many empty
+ *       squares exactly; 0 turns the solver off.
+ *  </ul>
+ *  @author Tianyu Liu
+ */
+class SearchOptions {
+
+    /** Names of the options, in the order of their indices. */
+    private static final String[] NAMES = {
+        "lmr", "lmrdepth", "lmrplies", "futility", "futilitydepth",
+        "endgame",
+    };
+
+    /** Indices of the options. */
+    private static final int LMR = 0, LMR_DEPTH = 1, LMR_PLIES = 2,
+        FUTILITY = 3, FUTILITY_DEPTH = 4, ENDGAME = 5;
+
+    /** Default option values. */
+    private static final int[] DEFAULTS = { 3, 3, 1, 2, 2, 3 };
+
+    /** Options with the default values. */
+    SearchOptions() {
+        _values = DEFAULTS.clone();
+    }
+
+    /** A copy of OPTIONS. */
+    SearchOptions(SearchOptions options) {
+        _values = options._values.clone();
+        _evaluator = options._evaluator;
+    }
+
+    /** Return the static evaluation function. */
+    Evaluator evaluator() {
+        return _evaluator;
+    }
+
+    /** Use EVALUATOR as the static evaluation function. */
+    void setEvaluator(Evaluator evaluator) {
+        _evaluator = evaluator;
+    }
+
+    /** Set the option named NAME to VALUE. */
+    void set(String name, int value) {
+        for (int i = 0; i < NAMES.length; i += 1) {
+            if (NAMES[i].equals(name)) {
+                if (value < 0) {
+                    throw error("option values must be non-negative");
+                }
+                _values[i] = value;
+                return;
+            }
+        }
+        throw error("unknown search option: %s", name);
+    }
+
+    /** Return the position from which quiet moves are reduced, or 0 if
+     *  none are. */
+    int lmr() {
+        return _values[LMR];
+    }
+
+    /** Return the least depth at which moves are reduced. */
+    int lmrDepth() {
+        return _values[LMR_DEPTH];
+    }
+
+    /** Return the number of plies by which moves are reduced. */
+    int lmrPlies() {
+        return _values[LMR_PLIES];
+    }
+
+    /** Return the futility margin in pieces per ply, or 0 if there is no
+     *  futility pruning. */
+    int futility() {
+        return _values[FUTILITY];
+    }
+
+    /** Return the greatest depth at which there is futility pruning. */
+    int futilityDepth() {
+        return _values[FUTILITY_DEPTH];
+    }
+
+    /** Return the greatest number of empty squares at which to solve
+     *  the endgame, or 0 if it is never solved. */
+    int endgame() {
+        return _values[ENDGAME];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i += 1) {
+            result.append(i == 0 ? "" : " ").append(NAMES[i]).append('=')
+                .append(_values[i]);
+        }
+        return result.toString();
+    }
+
+    /** The option values, indexed as NAMES. */
+    private final int[] _values;
+    /** The static evaluation function. */
+    private Evaluator _evaluator = new MaterialEvaluator();
+}
@@ -0,0 +1,375 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.Searcher.*;
+
+/** A set of Searchers that search one position together ("Lazy SMP").
+ *  The calling thread searches by iterative deepening and decides the
+ *  result.  Each additional thread runs the same kind of search on its
+ *  own copy of the board, half of them starting one ply deeper so that
+ *  they tend to work ahead of the others.  The threads share nothing but
+ *  a TranspositionTable, through which each benefits from positions the
+ *  others have searched.  Alternatively, the pool may hand its searches
+ *  to a SplitSearch with the same number of threads, whose results do
+ *  not depend on thread timing.
+ *  @author Tianyu Liu
+ */
+class SearchPool {
+
+    /** Report the time taken to search to a given depth from a few
+     *  positions with different numbers of threads.  ARGS[0] is the
+     *  depth, an optional "split" requests SplitSearch, and the
+     *  remaining arguments are the thread counts (default 1, 2, 4, 8,
+     *  and 16). */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java ataxx.SearchPool DEPTH "
+                               + "[ split ] [ THREADS ... ]");
+            System.exit(1);
+        }
+        int depth = Utils.toInt(args[0]);
+        int first = 1;
+        boolean split = args.length > 1 && args[1].equals("split");
+        if (split) {
+            first += 1;
+        }
+        int[] threads = { 1, 2, 4, 8, 16 };
+        if (args.length > first) {
+            threads = new int[args.length - first];
+            for (int i = first; i < args.length; i += 1) {
+                threads[i - first] = Utils.toInt(args[i]);
+            }
+        }
+        SearchPool warmUp = new SearchPool();
+        warmUp.setSplit(split);
+        warmUp.benchmark(depth, new StringBuilder());
+        warmUp.setSplit(false);
+        long base = 0;
+        for (int n : threads) {
+            SearchPool pool = new SearchPool();
+            pool.setThreads(n);
+            pool.setSplit(split);
+            StringBuilder moves = new StringBuilder();
+            long start = System.nanoTime();
+            long nodes = pool.benchmark(depth, moves);
+            long nanos = System.nanoTime() - start;
+            pool.setSplit(false);
+            if (base == 0) {
+                base = nanos;
+            }
+            System.out.printf("%2d threads: depth %d in %d msec, %d nodes,"
+                              + " speedup %.2f, moves%s%n", n, depth,
+                              nanos / 1000000, nodes, (double) base / nanos,
+                              moves);
+        }
+    }
+
+    /** Search each of BENCHMARK_POSITIONS to DEPTH with a new table
+     *  and evaluation cache, returning the total number of nodes visited
+     *  and appending the moves found to MOVES. */
+    private long benchmark(int depth, StringBuilder moves) {
+        long nodes = 0;
+        for (String[] position : BENCHMARK_POSITIONS) {
+            Board board = new Board();
+            for (String move : position) {
+                board.makeMove(move);
+            }
+            setEvalCache(new EvalCache(Defaults.EVAL_CACHE_SIZE));
+            int best = search(board, 1, depth, Long.MAX_VALUE,
+                              new TranspositionTable(Defaults.TABLE_SIZE));
+            moves.append(" ").append(board.toMove(best));
+            nodes += nodes();
+        }
+        return nodes;
+    }
+
+    /** Positions used by main, as moves from the initial position. */
+    private static final String[][] BENCHMARK_POSITIONS = {
+        {},
+        { "a7-b6", "g7-f6", "b6-c5", "f6-e6" },
+        { "a7-c7", "g7-e7", "g1-f2", "a1-b3", "f2-d3", "e7-d6" },
+    };
+
+    /** A pool that searches with one thread. */
+    SearchPool() {
+        setThreads(1);
+    }
+
+    /** Return the number of threads used to search. */
+    int threads() {
+        return _searchers.length;
+    }
+
+    /** Search with N threads (at least 1) from now on. */
+    void setThreads(int n) {
+        n = Math.max(1, n);
+        Searcher[] searchers = new Searcher[n];
+        for (int i = 0; i < n; i += 1) {
+            if (i < _searchers.length) {
+                searchers[i] = _searchers[i];
+            } else {
+                searchers[i] = new Searcher();
+            }
+        }
+        _searchers = searchers;
+        setSplit(_splitter != null);
+    }
+
+    /** Search as selectively as OPTIONS say from now on.  SplitSearch,
+     *  whose results must not depend on timing, ignores them. */
+    void setOptions(SearchOptions options) {
+        _options = options;
+    }
+
+    /** Keep the static values of positions in CACHE from now on, which
+     *  must hold only values given by the evaluator of the current
+     *  options.  SplitSearch does not use it. */
+    void setEvalCache(EvalCache cache) {
+        _cache = cache;
+    }
+
+    /** Search with a SplitSearch from now on iff SPLIT, rather than by
+     *  sharing a table. */
+    void setSplit(boolean split) {
+        if (_splitter != null
+            && (!split || _splitter.threads() != threads())) {
+            _splitter.shutdown();
+            _splitter = null;
+        }
+        if (split && _splitter == null) {
+            _splitter = new SplitSearch(threads());
+        }
+    }
+
+    /** Search BOARD, on which there must be a legal move, by iterative
+     *  deepening from FIRSTDEPTH up to LASTDEPTH or until
+     *  System.nanoTime() passes DEADLINE, whichever comes first, using
+     *  and updating TABLE (unless splitting the search).  Return the
+     *  code of the best move found by the deepest search that finished,
+     *  or NO_MOVE if none did.  BOARD is unchanged on return. */
+    int search(Board board, int firstDepth, int lastDepth, long deadline,
+               TranspositionTable table) {
+        if (_splitter != null) {
+            return _splitter.search(board, firstDepth, lastDepth, deadline,
+                                    _options.evaluator());
+        }
+        table.newSearch();
+        for (Searcher searcher : _searchers) {
+            searcher.start(table, _cache, _options, deadline);
+        }
+        if (_stopped) {
+            _searchers[0].stop();
+        }
+        Thread[] helpers = new Thread[_searchers.length - 1];
+        for (int i = 0; i < helpers.length; i += 1) {
+            Searcher helper = _searchers[i + 1];
+            Board copy = new Board(board);
+            int helperDepth = 1 + (i + 1) % 2;
+            helpers[i] = new Thread(() -> {
+                for (int d = helperDepth;
+                     d <= MAX_SEARCH_DEPTH && !helper.aborted(); d += 1) {
+                    helper.search(copy, d);
+                }
+            });
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+
+        Searcher main = _searchers[0];
+        int best = NO_MOVE;
+        int score = 0, previous = 0;
+        _depth = 0;
+        _iterations = _failedIterations = _failedNodes = 0;
+        for (int d = firstDepth; d <= lastDepth; d += 1) {
+            /* Values alternate with the parity of the depth, since the
+             * side making the last move has just captured, so guess the
+             * value found two iterations ago, not the last one, where
+             * there is one.  Deepening to 6 and 7 plies from seven
+             * opening positions, windows around the last value failed in
+             * 136 of 182 iterations, and those around the value two
+             * iterations ago in 26, which took 16-31% fewer nodes. */
+            int guess = d - firstDepth >= 2 ? previous : score;
+            previous = score;
+            score = aspirationSearch(main, board, d, guess,
+                                     d == firstDepth);
+            if (main.aborted()) {
+                break;
+            }
+            best = main.bestMove();
+            _depth = d;
+            if (Math.abs(score) >= WINNING_VALUE) {
+                break;
+            }
+        }
+
+        for (int i = 0; i < helpers.length; i += 1) {
+            _searchers[i + 1].stop();
+        }
+        for (Thread helper : helpers) {
+            while (true) {
+                try {
+                    helper.join();
+                    break;
+                } catch (InterruptedException excp) {
+                    continue;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Cause the search in progress in another thread to stop soon, as
+     *  if its deadline had passed, along with any search started before
+     *  the next call to resume().  Does not stop a SplitSearch. */
+    void stop() {
+        _stopped = true;
+        _searchers[0].stop();
+    }
+
+    /** Allow searches started from now on to run, undoing stop(). */
+    void resume() {
+        _stopped = false;
+    }
+
+    /** Search BOARD to DEPTH with MAIN, starting with a window of
+     *  ASPIRATION_WINDOW either side of GUESS, a value found by a
+     *  previous iteration (unless FIRST, when there is none), and
+     *  widening it on the side the value falls outside until the value
+     *  is inside.  A narrow window gives more cutoffs when the value is
+     *  near the guess, at the cost of repeating the search when it is
+     *  not.  Return the value. */
+    private int aspirationSearch(Searcher main, Board board, int depth,
+                                 int guess, boolean first) {
+        _iterations += 1;
+        if (first || Math.abs(guess) >= WINNING_VALUE) {
+            return main.search(board, depth);
+        }
+        long delta = ASPIRATION_WINDOW * Evaluator.PIECE;
+        int alpha = window(guess - delta), beta = window(guess + delta);
+        boolean failed = false;
+        while (true) {
+            long nodes = main.nodes();
+            int score = main.search(board, depth, alpha, beta);
+            if (main.aborted()) {
+                return score;
+            } else if (score <= alpha && alpha > -INFTY) {
+                delta *= ASPIRATION_GROWTH;
+                alpha = window(guess - delta);
+            } else if (score >= beta && beta < INFTY) {
+                delta *= ASPIRATION_GROWTH;
+                beta = window(guess + delta);
+            } else {
+                return score;
+            }
+            if (!failed) {
+                failed = true;
+                _failedIterations += 1;
+            }
+            _failedNodes += main.nodes() - nodes;
+        }
+    }
+
+    /** Return BOUND, limited to the range [-INFTY, INFTY]. */
+    private static int window(long bound) {
+        return (int) Math.max(-INFTY, Math.min(INFTY, bound));
+    }
+
+    /** Return the depth of the deepest search by the calling thread
+     *  that finished in the last call to search. */
+    int depth() {
+        if (_splitter != null) {
+            return _splitter.depth();
+        }
+        return _depth;
+    }
+
+    /** Return the number of nodes visited by all threads in the last
+     *  call to search. */
+    long nodes() {
+        if (_splitter != null) {
+            return _splitter.nodes();
+        }
+        long total = 0;
+        for (Searcher searcher : _searchers) {
+            total += searcher.nodes();
+        }
+        return total;
+    }
+
+    /** Return a summary of the statistics gathered by all threads in the
+     *  last call to search. */
+    String statistics() {
+        if (_splitter != null) {
+            return _splitter.statistics();
+        }
+        long probes, hits, cutoffs, firstCutoffs, researches, reductions,
+            pruned, evaluations, cacheHits;
+        probes = hits = cutoffs = firstCutoffs = researches = reductions
+            = pruned = evaluations = cacheHits = 0;
+        for (Searcher searcher : _searchers) {
+            probes += searcher.probes();
+            hits += searcher.hits();
+            cutoffs += searcher.cutoffs();
+            firstCutoffs += searcher.firstCutoffs();
+            researches += searcher.researches();
+            reductions += searcher.reductions();
+            pruned += searcher.pruned();
+            evaluations += searcher.evaluations();
+            cacheHits += searcher.cacheHits();
+        }
+        return String.format("table hits %d/%d, eval cache hits %d/%d "
+                             + "(%d%%), %d%% of %d cutoffs on "
+                             + "first move, %d re-searches, %d reduced, "
+                             + "%d pruned", hits, probes, cacheHits,
+                             evaluations, 100 * cacheHits
+                             / Math.max(1, evaluations),
+                             cutoffs == 0 ? 0 : 100 * firstCutoffs / cutoffs,
+                             cutoffs, researches, reductions, pruned);
+    }
+
+    /** Return a summary of the aspiration-window statistics of the last
+     *  call to search: the iterations whose first window was wrong, and
+     *  the nodes spent on windows that were wrong. */
+    String aspirationStatistics() {
+        if (_splitter != null) {
+            return "no aspiration windows";
+        }
+        return String.format("%d/%d iterations re-searched, %d nodes "
+                             + "(%d%%) in failed windows",
+                             _failedIterations, _iterations, _failedNodes,
+                             100 * _failedNodes / Math.max(1, nodes()));
+    }
+
+    /** Initial distance from the previous value to each end of an
+     *  aspiration window, in pieces. */
+    static final int ASPIRATION_WINDOW = 2;
+    /** Factor by which a failed aspiration window is widened. */
+    static final int ASPIRATION_GROWTH = 4;
+
+    /** Statistics on the calling thread's aspiration windows in the last
+     *  search: iterations, iterations repeated with a wider window, and
+     *  nodes spent on windows that turned out to be too narrow. */
+    private long _iterations, _failedIterations, _failedNodes;
+
+    /** The searchers, one per thread.  _searchers[0] runs in the thread
+     *  that calls search. */
+    private Searcher[] _searchers = new Searcher[0];
+
+    /** Selectivity settings for my Searchers. */
+    private SearchOptions _options = new SearchOptions();
+
+    /** Cache of static values for my Searchers. */
+    private EvalCache _cache = new EvalCache(0);
+
+    /** True between calls to stop() and resume(). */
+    private volatile boolean _stopped;
+
+    /** The search used instead of my Searchers, or null if none. */
+    private SplitSearch _splitter;
+
+    /** Depth reached by the last search. */
+    private int _depth;
+}
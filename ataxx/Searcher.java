@@ -0,0 +1,493 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import static ataxx.PieceColor.*;
+import static java.lang.Math.min;
+import static java.lang.Math.max;
+
+/** The alpha-beta search run by one thread of an AI, with the state it
+ *  keeps between searches (move buffers, killer moves, and history
+ *  counts) and statistics about its last search.  Several Searchers
+ *  may search at once if they have their own Boards; they share
+ *  results only through a TranspositionTable.
+ *  @author Tianyu Liu
+ */
+class Searcher {
+
+    /** Maximum search depth. */
+    static final int MAX_SEARCH_DEPTH = 64;
+    /** A position magnitude indicating a win (for the player to move if
+     *  positive, the opponent if negative). */
+    static final int WINNING_VALUE =
+        Integer.MAX_VALUE - 2 * MAX_SEARCH_DEPTH;
+    /** A magnitude greater than a normal value. */
+    static final int INFTY = Integer.MAX_VALUE;
+    /** A value different from any move code. */
+    static final int NO_MOVE = Integer.MIN_VALUE;
+
+    /** Prepare for a new search that records results in TABLE, keeps
+     *  static values in CACHE, is as selective as OPTIONS say, and must
+     *  stop when System.nanoTime() passes DEADLINE.  CACHE must hold only
+     *  values given by OPTIONS' evaluator. */
+    void start(TranspositionTable table, EvalCache cache,
+               SearchOptions options, long deadline) {
+        _table = table;
+        _cache = cache;
+        _evaluator = options.evaluator();
+        _vacatedMix = _evaluator.usesVacated() ? VACATED_MIX : 0;
+        _lmr = options.lmr();
+        _lmrDepth = options.lmrDepth();
+        _lmrPlies = options.lmrPlies();
+        _futility = options.futility();
+        _futilityDepth = options.futilityDepth();
+        _deadline = deadline;
+        _stopped = _aborted = false;
+        _nodes = _cutoffs = _firstCutoffs = _researches = 0;
+        _probes = _hits = _reductions = _pruned = 0;
+        _evaluations = _cacheHits = 0;
+        startOrdering();
+    }
+
+    /** Search BOARD to DEPTH, returning its value for the player to move
+     *  and setting bestMove().  BOARD is unchanged on return.  The result
+     *  is meaningless if aborted() afterwards. */
+    int search(Board board, int depth) {
+        return search(board, depth, -INFTY, INFTY);
+    }
+
+    /** Search BOARD to DEPTH with the window (ALPHA, BETA), returning
+     *  its value for the player to move and setting bestMove().  A value
+     *  at or outside the window only bounds the true value, and
+     *  bestMove() is then only reliable if the value is at least BETA.
+     *  BOARD is unchanged on return.  The result is meaningless if
+     *  aborted() afterwards. */
+    int search(Board board, int depth, int alpha, int beta) {
+        _bestMove = NO_MOVE;
+        return search(board, depth, 0, true, alpha, beta);
+    }
+
+    /** Cause the current search, possibly in another thread, to stop
+     *  soon. */
+    void stop() {
+        _stopped = true;
+    }
+
+    /** Return true iff the last search stopped before finishing. */
+    boolean aborted() {
+        return _aborted;
+    }
+
+    /** Return the code of the best move found by the last search, or
+     *  NO_MOVE if it did not find one. */
+    int bestMove() {
+        return _bestMove;
+    }
+
+    /** Return the number of nodes visited since start(). */
+    long nodes() {
+        return _nodes;
+    }
+
+    /** Return the number of nodes since start() that had a cutoff. */
+    long cutoffs() {
+        return _cutoffs;
+    }
+
+    /** Return the number of cutoffs since start() made by the first
+     *  move tried. */
+    long firstCutoffs() {
+        return _firstCutoffs;
+    }
+
+    /** Return the number of null-window searches since start() that
+     *  had to be repeated with a full window. */
+    long researches() {
+        return _researches;
+    }
+
+    /** Return the number of moves searched to reduced depth since
+     *  start(). */
+    long reductions() {
+        return _reductions;
+    }
+
+    /** Return the number of moves pruned as futile since start(). */
+    long pruned() {
+        return _pruned;
+    }
+
+    /** Return the number of table probes since start(). */
+    long probes() {
+        return _probes;
+    }
+
+    /** Return the number of successful table probes since start(). */
+    long hits() {
+        return _hits;
+    }
+
+    /** Return the number of static values requested since start(). */
+    long evaluations() {
+        return _evaluations;
+    }
+
+    /** Return the number of static values found in the evaluation cache
+     *  since start(). */
+    long cacheHits() {
+        return _cacheHits;
+    }
+
+    /** Find a move from position BOARD and return its value from the
+     *  point of view of the player to move, recording the move found in
+     *  _bestMove iff SAVEMOVE.  The value is exact if it lies
+     *  strictly between ALPHA and BETA; otherwise it is at most ALPHA or
+     *  at least BETA, and bounds the exact value from the same side.
+     *  Searches up to DEPTH levels, BOARD being PLY moves from the root
+     *  of the search.  Searching at level 0 simply returns
+     *  a static estimate of the board value and does not set
+     *  _bestMove. If the game is over on BOARD, does not set
+     *  _bestMove.  If the time limit passes or the search is stopped,
+     *  sets _aborted and returns at once with a meaningless value.
+     *  Results are recorded in and reused from _table.
+     *
+     *  This is a principal-variation search: the first move (which
+     *  ordering makes the likely best) gets the full window, and the
+     *  others are only tested with a null window to show that they are
+     *  no better, being searched again in full only when they are.
+     *  Late quiet moves are tested at reduced depth (see reduce), and
+     *  near the leaves, moves too poor to matter are skipped (see
+     *  futile). */
+    private int search(Board board, int depth, int ply, boolean saveMove,
+                       int alpha, int beta) {
+        _nodes += 1;
+        if ((_nodes & CLOCK_CHECK_MASK) == 0
+            && (_stopped || System.nanoTime() > _deadline)) {
+            _aborted = true;
+        }
+        if (_aborted) {
+            return 0;
+        }
+        if (depth == 0 || board.getWinner() != null) {
+            return value(board, depth);
+        }
+        int alpha0 = alpha;
+        int hashMove = NO_MOVE;
+        long key = key(board);
+        long entry = _table.probe(key);
+        _probes += 1;
+        if (entry != 0) {
+            _hits += 1;
+            hashMove = TranspositionTable.move(entry);
+            if (!saveMove && TranspositionTable.depth(entry) >= depth) {
+                int score = TranspositionTable.score(entry);
+                switch (TranspositionTable.bound(entry)) {
+                case TranspositionTable.EXACT:
+                    return score;
+                case TranspositionTable.LOWER:
+                    if (score >= beta) {
+                        return score;
+                    }
+                    break;
+                default:
+                    if (score <= alpha) {
+                        return score;
+                    }
+                    break;
+                }
+            }
+        }
+        int best = Board.PASS_CODE;
+        int bestScore = -INFTY;
+        int[] moves = _moves[depth];
+        int numMoves = board.legalMoves(moves);
+        orderMoves(board, moves, numMoves, ply, hashMove);
+        int standing = NO_MOVE;
+        if (!saveMove && depth <= _futilityDepth && _futility > 0
+            && board.numEmpty() > depth + 1
+            && board.numJumps() + depth < Board.JUMP_LIMIT) {
+            standing = value(board, depth);
+        }
+        for (int i = 0; i < numMoves; i++) {
+            int thisMove = moves[i];
+            if (i > 0 && standing != NO_MOVE) {
+                int optimistic = futile(board, thisMove, standing, depth);
+                if (optimistic <= alpha) {
+                    _pruned += 1;
+                    bestScore = max(bestScore, optimistic);
+                    continue;
+                }
+            }
+            int reduction = reduce(board, thisMove, i, depth, ply);
+            board.makeSearchMove(thisMove);
+            int score;
+            if (i == 0) {
+                score = -search(board, depth - 1, ply + 1, false,
+                                -beta, -alpha);
+            } else {
+                score = alpha + 1;
+                if (reduction > 0) {
+                    _reductions += 1;
+                    score = -search(board, depth - 1 - reduction, ply + 1,
+                                    false, -alpha - 1, -alpha);
+                }
+                if (score > alpha && !_aborted) {
+                    score = -search(board, depth - 1, ply + 1, false,
+                                    -alpha - 1, -alpha);
+                }
+                if (score > alpha && score < beta && !_aborted) {
+                    _researches += 1;
+                    score = -search(board, depth - 1, ply + 1, false,
+                                    -beta, -alpha);
+                }
+            }
+            board.undoSearchMove();
+            if (_aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = thisMove;
+                alpha = max(alpha, score);
+                if (alpha >= beta) {
+                    recordCutoff(thisMove, i, ply, depth);
+                    break;
+                }
+            }
+        }
+        int bound;
+        if (bestScore <= alpha0) {
+            bound = TranspositionTable.UPPER;
+        } else if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        _table.store(key, depth, bestScore, bound, best);
+        if (saveMove) {
+            _bestMove = best;
+        }
+        return bestScore;
+    }
+
+    /** Return the number of plies by which to reduce the search of
+     *  MOVE, the Ith move at ply PLY on BOARD, where DEPTH remains.
+     *  Moves late in the order that gain little (extends, and jumps
+     *  that flip nothing) and are not killers are reduced, if the
+     *  options allow. */
+    private int reduce(Board board, int move, int i, int depth, int ply) {
+        if (_lmr == 0 || i < _lmr || depth < _lmrDepth
+            || move == Board.PASS_CODE) {
+            return 0;
+        }
+        int[] killers = _killers[ply];
+        if (move == killers[0] || move == killers[1]) {
+            return 0;
+        }
+        boolean extend = Board.codeFrom(move) == Board.codeTo(move);
+        if (!extend && board.gain(move) > 0) {
+            return 0;
+        }
+        return min(_lmrPlies, depth - 1);
+    }
+
+    /** Return an optimistic value, for the player to move on BOARD, of
+     *  MOVE, given that STANDING is the static value of BOARD and DEPTH
+     *  remains: the static value after MOVE plus the futility margin for
+     *  each ply after the next.  Moves that could end the game are
+     *  valued at INFTY, so as never to be pruned. */
+    private int futile(Board board, int move, int standing, int depth) {
+        if (move == Board.PASS_CODE) {
+            return INFTY;
+        }
+        boolean extend = Board.codeFrom(move) == Board.codeTo(move);
+        int gain = board.gain(move);
+        int flips = extend ? gain - 1 : gain;
+        if (flips >= board.numPieces(board.whoseMove().opposite())) {
+            return INFTY;
+        }
+        return standing + Evaluator.PIECE
+            * (gain + flips + _futility * (depth - 1));
+    }
+
+    /** Sort MOVES[0 .. N-1], the legal moves at ply PLY on BOARD, so
+     *  that the likeliest to cause a cutoff come first: HASHMOVE (the
+     *  table's best move for BOARD), then by the number of pieces
+     *  gained, with this ply's killer moves counting one piece extra
+     *  and the history table breaking ties. */
+    private void orderMoves(Board board, int[] moves, int n, int ply,
+                            int hashMove) {
+        if (n <= 1) {
+            return;
+        }
+        int[] keys = _orderKeys;
+        int[] killers = _killers[ply];
+        for (int i = 0; i < n; i += 1) {
+            int move = moves[i];
+            int key;
+            if (move == hashMove) {
+                key = Integer.MAX_VALUE;
+            } else {
+                key = board.gain(move) * GAIN_WEIGHT + _history[move];
+                if (move == killers[0] || move == killers[1]) {
+                    key += GAIN_WEIGHT;
+                }
+            }
+            int j;
+            for (j = i; j > 0 && keys[j - 1] < key; j -= 1) {
+                keys[j] = keys[j - 1];
+                moves[j] = moves[j - 1];
+            }
+            keys[j] = key;
+            moves[j] = move;
+        }
+    }
+
+    /** Record that MOVE, the Ith move tried at ply PLY with DEPTH levels
+     *  left to search, caused a cutoff. */
+    private void recordCutoff(int move, int i, int ply, int depth) {
+        _cutoffs += 1;
+        if (i == 0) {
+            _firstCutoffs += 1;
+        }
+        if (move == Board.PASS_CODE) {
+            return;
+        }
+        int[] killers = _killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+        _history[move] = min(_history[move] + depth * depth, HISTORY_LIMIT);
+    }
+
+    /** Prepare the move-ordering tables for a new search: forget the
+     *  killer moves and age the history counts. */
+    private void startOrdering() {
+        for (int[] killers : _killers) {
+            killers[0] = killers[1] = NO_MOVE;
+        }
+        for (int i = 0; i < _history.length; i += 1) {
+            _history[i] >>= 1;
+        }
+    }
+
+    /** Weight given to each piece a move gains when ordering moves.
+     *  History counts are kept below this. */
+    private static final int GAIN_WEIGHT = 1 << 16;
+
+    /** Upper limit on history counts. */
+    private static final int HISTORY_LIMIT = GAIN_WEIGHT - 1;
+
+    /** The two most recent moves to cause cutoffs at each ply of the
+     *  current search. */
+    private final int[][] _killers = new int[MAX_SEARCH_DEPTH + 1][2];
+
+    /** For each move code, a count of the cutoffs it has caused, each
+     *  weighted by the square of the remaining depth. */
+    private final int[] _history = new int[Board.CODE_LIMIT];
+
+    /** Sort keys used by orderMoves. */
+    private final int[] _orderKeys = new int[Board.MAX_MOVES];
+
+    /** Return the static value of BOARD, reached with DEPTH levels of
+     *  search left, for the player to move, as given by EVALUATOR if the
+     *  game is not over.  Wins found with more depth left, being nearer,
+     *  are worth more. */
+    static int value(Board board, int depth, Evaluator evaluator) {
+        PieceColor winner = board.getWinner();
+        if (winner == null) {
+            return evaluator.evaluate(board);
+        } else if (winner == EMPTY) {
+            return 0;
+        } else if (winner == board.whoseMove()) {
+            return WINNING_VALUE + depth;
+        } else {
+            return -WINNING_VALUE - depth;
+        }
+    }
+
+    /** Return value(BOARD, DEPTH, _evaluator), taking the static value
+     *  from _cache where it can. */
+    private int value(Board board, int depth) {
+        if (board.getWinner() != null) {
+            return value(board, depth, _evaluator);
+        }
+        _evaluations += 1;
+        long key = key(board);
+        int result = _cache.probe(key);
+        if (result != EvalCache.MISS) {
+            _cacheHits += 1;
+            return result;
+        }
+        result = _evaluator.evaluate(board);
+        _cache.store(key, result);
+        return result;
+    }
+
+    /** Return the key of BOARD in the table and cache of a search using
+     *  EVALUATOR.  Since an evaluator may look at the squares jumps have
+     *  vacated, which Board.key() ignores, they are then mixed into the
+     *  key, so that positions differing only in them do not share
+     *  scores. */
+    static long key(Board board, Evaluator evaluator) {
+        return evaluator.usesVacated()
+            ? board.key() ^ board.vacated() * VACATED_MIX : board.key();
+    }
+
+    /** Return key(BOARD, _evaluator). */
+    private long key(Board board) {
+        return board.key() ^ board.vacated() * _vacatedMix;
+    }
+
+    /** Odd multiplier that spreads the bits of a mask of vacated squares
+     *  over a whole key. */
+    private static final long VACATED_MIX = 0x9E3779B97F4A7C15L;
+
+    /** Buffers for the moves generated at each remaining search depth,
+     *  allocated once so that the search itself does not allocate. */
+    private final int[][] _moves =
+        new int[MAX_SEARCH_DEPTH + 1][Board.MAX_MOVES];
+
+    /** Number of nodes between checks of the clock during a search
+     *  (less 1; a power of 2 less 1). */
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    /** Value of System.nanoTime() at which the current search must
+     *  stop. */
+    private long _deadline;
+
+    /** Set by another thread to stop the current search. */
+    private volatile boolean _stopped;
+
+    /** True iff the current search ran out of time or was stopped.  Its
+     *  results are then meaningless. */
+    private boolean _aborted;
+
+    /** Selectivity settings from the SearchOptions of the current
+     *  search.  See SearchOptions. */
+    private int _lmr, _lmrDepth, _lmrPlies, _futility, _futilityDepth;
+
+    /** The static evaluation function. */
+    private Evaluator _evaluator;
+    /** VACATED_MIX if _evaluator uses vacated squares, and otherwise 0. */
+    private long _vacatedMix;
+
+    /** Table of search results, possibly shared with other Searchers. */
+    private TranspositionTable _table;
+
+    /** Cache of static values, possibly shared with other Searchers. */
+    private EvalCache _cache;
+
+    /** The best move found by the last search. */
+    private int _bestMove;
+
+    /** Statistics: number of nodes visited, nodes that had a cutoff,
+     *  cutoffs by the first move, null-window searches repeated, table
+     *  probes, successful probes, moves reduced, moves pruned, static
+     *  values requested, and static values found in the cache. */
+    private long _nodes, _cutoffs, _firstCutoffs, _researches,
+        _probes, _hits, _reductions, _pruned, _evaluations, _cacheHits;
+}
@@ -0,0 +1,322 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static ataxx.Board.MAX_MOVES;
+import static ataxx.Searcher.*;
+
+/** A parallel alpha-beta search that splits the game tree among the
+ *  threads of a ForkJoinPool ("Young Brothers Wait").  At each node
+ *  deep enough to be worth splitting, the first (eldest) move is
+ *  searched alone, and the remaining moves are then forked as tasks,
+ *  each on its own copy of the board, all with the window left by the
+ *  eldest.  Results are combined in move order, and when one move
+ *  causes a cutoff, only the moves after it are cancelled.  Since no
+ *  task depends on when any other finishes, and there is no shared
+ *  table, the value and move found do not depend on the number of
+ *  threads or their timing, unlike SearchPool's shared-table
+ *  search.
+ *  @author Tianyu Liu
+ */
+class SplitSearch {
+
+    /** Nodes with less than this depth remaining are searched by one
+     *  thread. */
+    static final int SPLIT_DEPTH = 3;
+
+    /** A search using THREADS threads. */
+    SplitSearch(int threads) {
+        _pool = new ForkJoinPool(threads);
+    }
+
+    /** Return the number of threads used to search. */
+    int threads() {
+        return _pool.getParallelism();
+    }
+
+    /** Release the threads used by this search. */
+    void shutdown() {
+        _pool.shutdown();
+    }
+
+    /** Search BOARD, on which there must be a legal move, by iterative
+     *  deepening from FIRSTDEPTH up to LASTDEPTH or until
+     *  System.nanoTime() passes DEADLINE, whichever comes first, using
+     *  EVALUATOR for static values.  Return the code of the best move
+     *  found by the deepest search that finished, or NO_MOVE if none
+     *  did.  BOARD is unchanged on return. */
+    int search(Board board, int firstDepth, int lastDepth, long deadline,
+               Evaluator evaluator) {
+        _job = new Job(deadline, evaluator);
+        int best = NO_MOVE;
+        _depth = 0;
+        for (int d = firstDepth; d <= lastDepth; d += 1) {
+            Node root = new Node(_job, null, 0, new Board(board), d,
+                                 -INFTY, INFTY);
+            int score = _pool.invoke(root);
+            if (_job.timedOut) {
+                break;
+            }
+            best = root._bestMove;
+            _depth = d;
+            if (Math.abs(score) >= WINNING_VALUE) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    /** Return the depth of the deepest search that finished in the last
+     *  call to search. */
+    int depth() {
+        return _depth;
+    }
+
+    /** Return the number of nodes visited in the last call to search. */
+    long nodes() {
+        return _job.nodes.sum();
+    }
+
+    /** Return a summary of the statistics gathered in the last call to
+     *  search. */
+    String statistics() {
+        return String.format("%d split nodes, %d tasks cancelled",
+                             _job.splits.sum(), _job.cancels.sum());
+    }
+
+    /** Sort MOVES[0 .. N-1], the legal moves on BOARD, into decreasing
+     *  order of the number of pieces they gain, using KEYS to hold the
+     *  sort keys.  Equal moves keep their order, so the result depends
+     *  only on BOARD. */
+    private static void orderMoves(Board board, int[] moves, int n,
+                                   int[] keys) {
+        for (int i = 0; i < n; i += 1) {
+            int move = moves[i];
+            int key = board.gain(move);
+            int j;
+            for (j = i; j > 0 && keys[j - 1] < key; j -= 1) {
+                keys[j] = keys[j - 1];
+                moves[j] = moves[j - 1];
+            }
+            keys[j] = key;
+            moves[j] = move;
+        }
+    }
+
+    /** The state shared by all tasks of one call to search. */
+    private static class Job {
+        /** A Job that must end when System.nanoTime() passes DEADLINE,
+         *  using EVALUATOR for static values. */
+        Job(long deadline, Evaluator evaluator) {
+            this.deadline = deadline;
+            this.evaluator = evaluator;
+        }
+
+        /** Value of System.nanoTime() at which the search must stop. */
+        final long deadline;
+        /** The static evaluation function. */
+        final Evaluator evaluator;
+        /** Set once the deadline has passed. */
+        volatile boolean timedOut;
+        /** Statistics: nodes visited, nodes split, and tasks cancelled. */
+        final LongAdder nodes = new LongAdder(), splits = new LongAdder(),
+            cancels = new LongAdder();
+    }
+
+    /** A task that searches one node of the tree and returns its value
+     *  for the player to move there. */
+    private static class Node extends RecursiveTask<Integer> {
+
+        /** A task belonging to JOB that searches BOARD, the INDEXth child
+         *  of PARENT (null at the root), to DEPTH with window (ALPHA,
+         *  BETA).  The task has BOARD to itself. */
+        Node(Job job, Node parent, int index, Board board, int depth,
+             int alpha, int beta) {
+            _job = job;
+            _parent = parent;
+            _index = index;
+            _board = board;
+            _depth = depth;
+            _alpha = alpha;
+            _beta = beta;
+        }
+
+        @Override
+        protected Integer compute() {
+            int score = cancelled() ? 0 : search();
+            _job.nodes.add(_nodes);
+            if (_parent != null && score <= _alpha && !cancelled()) {
+                _parent.cutoff(_index);
+            }
+            return score;
+        }
+
+        /** Record that my INDEXth child produced a cutoff, cancelling
+         *  any of its younger brothers that are still searching. */
+        void cutoff(int index) {
+            _cutoff.accumulateAndGet(index, Math::min);
+        }
+
+        /** Return true iff my result will not be used: because the
+         *  deadline has passed, or because an elder brother of mine or
+         *  of one of my ancestors produced a cutoff. */
+        boolean cancelled() {
+            for (Node n = this; n._parent != null; n = n._parent) {
+                if (n._index > n._parent._cutoff.get()) {
+                    return true;
+                }
+            }
+            if (_job.timedOut) {
+                return true;
+            } else if (System.nanoTime() > _job.deadline) {
+                _job.timedOut = true;
+                return true;
+            }
+            return false;
+        }
+
+        /** Return the value of my node, searching it in parallel if it
+         *  is deep enough, and setting _bestMove. */
+        private int search() {
+            if (_depth < SPLIT_DEPTH || _board.getWinner() != null) {
+                int[][] buffers = BUFFERS.get();
+                return alphaBeta(_board, _depth, _alpha, _beta, buffers,
+                                 buffers[MAX_SEARCH_DEPTH + 1]);
+            }
+            _nodes += 1;
+            _job.splits.increment();
+            int alpha = _alpha, beta = _beta;
+            int[] moves = new int[MAX_MOVES];
+            int n = _board.legalMoves(moves);
+            orderMoves(_board, moves, n, new int[n]);
+
+            Node eldest = new Node(_job, this, 0, _board, _depth - 1,
+                                   -beta, -alpha);
+            _board.makeSearchMove(moves[0]);
+            int bestScore = -eldest.compute();
+            _board.undoSearchMove();
+            _bestMove = moves[0];
+            if (cancelled() || bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+
+            Node[] brothers = new Node[n];
+            for (int i = 1; i < n; i += 1) {
+                Board board = new Board(_board);
+                board.makeSearchMove(moves[i]);
+                brothers[i] = new Node(_job, this, i, board, _depth - 1,
+                                       -beta, -alpha);
+                brothers[i].fork();
+            }
+            for (int i = 1; i < n; i += 1) {
+                int score = -brothers[i].join();
+                if (cancelled()) {
+                    return 0;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    _bestMove = moves[i];
+                    if (score >= beta) {
+                        for (int j = i + 1; j < n; j += 1) {
+                            brothers[j].cancel(false);
+                        }
+                        _job.cancels.add(n - i - 1);
+                        break;
+                    }
+                }
+            }
+            return bestScore;
+        }
+
+        /** Return the value of BOARD for the player to move, searched to
+         *  DEPTH with window (ALPHA, BETA) by this thread alone, using
+         *  MOVES[d] for the moves at depth d and KEYS for sorting them.
+         *  Returns a meaningless value once cancelled.  BOARD is
+         *  unchanged on return. */
+        private int alphaBeta(Board board, int depth, int alpha, int beta,
+                              int[][] moves, int[] keys) {
+            _nodes += 1;
+            if ((_nodes & CANCEL_CHECK_MASK) == 0 && cancelled()) {
+                _aborted = true;
+            }
+            if (_aborted) {
+                return 0;
+            }
+            if (depth == 0 || board.getWinner() != null) {
+                return value(board, depth, _job.evaluator);
+            }
+            int[] myMoves = moves[depth];
+            int n = board.legalMoves(myMoves);
+            orderMoves(board, myMoves, n, keys);
+            int bestScore = -INFTY;
+            for (int i = 0; i < n; i += 1) {
+                board.makeSearchMove(myMoves[i]);
+                int score = -alphaBeta(board, depth - 1, -beta, -alpha,
+                                       moves, keys);
+                board.undoSearchMove();
+                if (score > bestScore) {
+                    bestScore = score;
+                    if (depth == _depth) {
+                        _bestMove = myMoves[i];
+                    }
+                    alpha = Math.max(alpha, score);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+            return bestScore;
+        }
+
+        /** The job I am part of. */
+        private final Job _job;
+        /** The task searching my parent node, or null at the root. */
+        private final Node _parent;
+        /** My position among my parent's moves. */
+        private final int _index;
+        /** The position I search. */
+        private final Board _board;
+        /** Depth to search. */
+        private final int _depth;
+        /** Search window. */
+        private final int _alpha, _beta;
+        /** Index of my first child known to cause a cutoff. */
+        private final AtomicInteger _cutoff =
+            new AtomicInteger(Integer.MAX_VALUE);
+        /** Best move found. */
+        private int _bestMove = NO_MOVE;
+        /** Nodes I have visited. */
+        private long _nodes;
+        /** True iff my search by alphaBeta was cancelled. */
+        private boolean _aborted;
+    }
+
+    /** Number of nodes between checks for cancellation in a serial
+     *  search (less 1; a power of 2 less 1). */
+    private static final int CANCEL_CHECK_MASK = 1023;
+
+    /** Each thread's buffers for serial searches: move lists for each
+     *  remaining depth, followed by a buffer of sort keys.  A serial
+     *  search runs to completion without forking, so a thread never has
+     *  two in progress at once. */
+    private static final ThreadLocal<int[][]> BUFFERS =
+        ThreadLocal.withInitial(
+            () -> new int[MAX_SEARCH_DEPTH + 2][MAX_MOVES]);
+
+    /** The threads that search. */
+    private final ForkJoinPool _pool;
+
+    /** The state of the last search. */
+    private Job _job = new Job(0, null);
+
+    /** Depth reached by the last search. */
+    private int _depth;
+}
@@ -0,0 +1,116 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+/** A fixed-size table of search results, indexed by Board.key().  Each
+ *  entry records the depth searched, the score found, whether that score
+ *  is exact or a bound, and the best move, so that a search reaching the
+ *  same position again by another order of moves can reuse or at least
+ *  be guided by the earlier result.
+ *
+ *  The table is a KeyedTable (so direct-mapped, and safe for several
+ *  threads without locking) holding one packed data word per entry.
+ *  When two positions compete for an entry, the one searched more deeply
+ *  wins, except that entries left over from earlier searches are always
+ *  replaced.  A result for the same position replaces the entry only if
+ *  it is at least as deep, or exact, so that a shallow re-search (by a
+ *  helper thread, say) does not discard a deeper one.
+ *  @author Tianyu Liu
+ */
+class TranspositionTable extends KeyedTable {
+
+    /** Bound types.  EXACT: the score is the position's value.  LOWER:
+     *  the value is at least the score.  UPPER: the value is at most the
+     *  score. */
+    static final int EXACT = 0, LOWER = 1, UPPER = 2;
+
+    /** A table occupying at most MEGABYTES megabytes (rounded down to a
+     *  power-of-two number of entries).  A size of 0 gives a table that
+     *  stores nothing. */
+    TranspositionTable(int megabytes) {
+        super(megabytes);
+    }
+
+    @Override
+    void clear() {
+        super.clear();
+        _age = 0;
+    }
+
+    /** Indicate the start of a new search, so that entries stored before
+     *  now are preferred for replacement. */
+    void newSearch() {
+        _age = (_age + 1) & AGE_MASK;
+    }
+
+    /** Return the data word of the entry for the position with key KEY,
+     *  or 0 if there is none.  Its fields are given by depth, score,
+     *  bound, and move. */
+    long probe(long key) {
+        return find(key);
+    }
+
+    /** Return the depth recorded in the data word ENTRY. */
+    static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT & DEPTH_MASK) - 1;
+    }
+
+    /** Return the score recorded in the data word ENTRY. */
+    static int score(long entry) {
+        return (int) entry;
+    }
+
+    /** Return the bound type (EXACT, LOWER, or UPPER) of the data word
+     *  ENTRY. */
+    static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT & BOUND_MASK);
+    }
+
+    /** Return the code of the best move recorded in the data word
+     *  ENTRY. */
+    static int move(long entry) {
+        return (int) (entry >>> MOVE_SHIFT & MOVE_MASK) + Board.PASS_CODE;
+    }
+
+    /** Record that a search of DEPTH from the position with key KEY
+     *  produced SCORE, whose bound type is BOUND, with best move MOVE,
+     *  unless the entry holds a deeper result for the same position, or
+     *  (for another position) from the current search.  An EXACT score
+     *  always replaces a bound for the same position. */
+    void store(long key, int depth, int score, int bound, int move) {
+        if (size() == 0) {
+            return;
+        }
+        int i = index(key);
+        long old = data(i);
+        if (old != 0 && depth < depth(old)) {
+            if (holds(i, key, old)
+                ? bound != EXACT
+                : (old >>> AGE_SHIFT & AGE_MASK) == _age) {
+                return;
+            }
+        }
+        long data = (score & 0xffffffffL)
+            | (long) (depth + 1) << DEPTH_SHIFT
+            | (long) bound << BOUND_SHIFT
+            | (long) _age << AGE_SHIFT
+            | (long) (move - Board.PASS_CODE) << MOVE_SHIFT;
+        put(i, key, data);
+    }
+
+    /* Layout of a data word: the score in the low 32 bits, then the
+     * depth + 1 (so that an occupied entry is never 0), the bound type,
+     * the age, and the move code - PASS_CODE. */
+
+    /** Positions and masks of the fields of a data word. */
+    private static final int
+        DEPTH_SHIFT = 32, DEPTH_MASK = 0xff,
+        BOUND_SHIFT = 40, BOUND_MASK = 0x3,
+        AGE_SHIFT = 42, AGE_MASK = 0xff,
+        MOVE_SHIFT = 50, MOVE_MASK = 0x1fff;
+
+    /** Age of the current search. */
+    private int _age;
+}
@@ -0,0 +1,87 @@
+/* Skeleton code copyright (C) 2008, 2022 Paul N. Hilfinger and the
+ * Regents of the University of California.  Do not distribute this or any
+ * derivative work without permission. */
+
+package ataxx;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static ataxx.TranspositionTable.*;
+
+/** Tests of the TranspositionTable class.
+ *  @author Tianyu Liu
+ */
+public class TranspositionTableTest {
+
+    /** Key of the position used in the tests. */
+    private static final long KEY = 0x1234_5678_9abcL;
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(0, table.probe(KEY));
+        table.store(KEY, 3, -17, LOWER, Board.moveCode(10, 11));
+        long entry = table.probe(KEY);
+        assertEquals(3, depth(entry));
+        assertEquals(-17, score(entry));
+        assertEquals(LOWER, bound(entry));
+        assertEquals(Board.moveCode(10, 11), move(entry));
+        assertEquals(0, table.probe(KEY + 1));
+    }
+
+    @Test
+    public void testKeepsDeeperResult() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(KEY, 6, 40, LOWER, Board.PASS_CODE);
+        table.newSearch();
+        table.store(KEY, 2, 10, UPPER, Board.PASS_CODE);
+        assertEquals("shallow bound replaced deeper result",
+                     6, depth(table.probe(KEY)));
+        table.store(KEY, 6, 30, UPPER, Board.PASS_CODE);
+        assertEquals(30, score(table.probe(KEY)));
+        table.store(KEY, 1, 20, EXACT, Board.PASS_CODE);
+        assertEquals("exact score not stored",
+                     EXACT, bound(table.probe(KEY)));
+    }
+
+    /** Two positions with the same pieces, jump count and player to
+     *  move, which differ only in the squares jumps have vacated, share
+     *  a Board.key() but must not share table entries when the
+     *  evaluator looks at vacated squares. */
+    @Test
+    public void testVacatedKeys() {
+        Board b1 = new Board(), b2 = new Board();
+        for (String move : new String[] {"a7-c7", "g7-e7", "c7-a7",
+                                         "e7-g7"}) {
+            b1.makeMove(move);
+        }
+        for (String move : new String[] {"g1-e1", "a1-c1", "e1-g1",
+                                         "c1-a1"}) {
+            b2.makeMove(move);
+        }
+        assertEquals(b1.key(), b2.key());
+        assertNotEquals(b1.vacated(), b2.vacated());
+        Evaluator material = new MaterialEvaluator(),
+            positional = new PositionalEvaluator();
+        assertEquals(b1.key(), Searcher.key(b1, material));
+        assertNotEquals("vacated squares ignored",
+                        Searcher.key(b1, positional),
+                        Searcher.key(b2, positional));
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long other = KEY + table.size();
+        table.store(KEY, 6, 40, EXACT, Board.PASS_CODE);
+        table.store(other, 2, 10, EXACT, Board.PASS_CODE);
+        assertEquals("deeper entry of this search replaced",
+                     40, score(table.probe(KEY)));
+        table.newSearch();
+        table.store(other, 2, 10, EXACT, Board.PASS_CODE);
+        assertEquals("old entry kept", 0, table.probe(KEY));
+        assertEquals(10, score(table.probe(other)));
+    }
+
+}
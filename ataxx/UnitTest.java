@@ -15,7 +15,11 @@ public class UnitTest {
      *  the arguments of runClasses to run other JUnit tests. */
     public static void main(String[] ignored) {
         textui.runClasses(CommandTest.class, MoveTest.class,
-                          BoardTest.class);
+                          BoardTest.class, OpeningBookTest.class,
+                          ProofNumberSearchTest.class,
+                          MonteCarloSearchTest.class, PlayoutTest.class,
+                          NTupleEvaluatorTest.class,
+                          TranspositionTableTest.class);
     }
 
 }
@@ -27,6 +27,17 @@ class Utils {
         return Long.parseLong(numeral);
     }
 
+    /** Return the value of System.nanoTime() MILLIS milliseconds after
+     *  START, or Long.MAX_VALUE (never) if that is too far off to
+     *  represent. */
+    static long deadline(long start, long millis) {
+        try {
+            return Math.addExact(start, Math.multiplyExact(millis, 1000000L));
+        } catch (ArithmeticException excp) {
+            return Long.MAX_VALUE;
+        }
+    }
+
     /** Set the message level for this package to LEVEL.  The debug() routine
      *  (below) will print any message with a positive level that is <= LEVEL.
      *  Initially, the level is 0. */